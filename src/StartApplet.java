@@ -1,6 +1,7 @@
 import javax.swing.JApplet;
 
 import com.gamesbykevin.minesweeper.main.Main;
+import com.gamesbykevin.minesweeper.metrics.StartupProfile;
 import com.gamesbykevin.minesweeper.shared.Shared;
 
 /**
@@ -14,6 +15,9 @@ public final class StartApplet extends JApplet
     @Override
     public void init()
     {
+        //measure how long it takes to get to the menu
+        StartupProfile.mark(StartupProfile.Mark.Main);
+        
         //the size of our game window
         setSize(Shared.INITIAL_WIDTH, Shared.INITIAL_HEIGHT);
 
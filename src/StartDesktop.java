@@ -1,4 +1,5 @@
 import com.gamesbykevin.minesweeper.main.Main;
+import com.gamesbykevin.minesweeper.metrics.StartupProfile;
 import com.gamesbykevin.minesweeper.shared.Shared;
 
 import java.awt.Dimension;
@@ -42,6 +43,9 @@ public final class StartDesktop extends JPanel
     
     public static void main(String[] args)
     {
+        //measure how long it takes to get to the menu
+        StartupProfile.mark(StartupProfile.Mark.Main);
+        
         try
         {
             //create a new jframe that will contain our application
@@ -5,15 +5,16 @@ import com.gamesbykevin.framework.base.Sprite;
 import com.gamesbykevin.framework.resources.Disposable;
 
 import com.gamesbykevin.minesweeper.board.tile.*;
+import com.gamesbykevin.minesweeper.metrics.Events;
 
 import com.gamesbykevin.minesweeper.resources.Resources;
 import com.gamesbykevin.minesweeper.resources.GameAudio.Keys;
 
-import java.awt.Graphics2D;
-import java.awt.Image;
 import java.awt.Point;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Random;
 
@@ -36,6 +37,30 @@ public final class Board extends Sprite implements Disposable
     
     //tmp list(s)
     private List<Cell> tmpCells;
+    
+    //the number of tiles revealed by the current selection
+    private int revealed = 0;
+    
+    //the number of times a tile has changed, used to check if an input changed the board
+    private int modifications = 0;
+    
+    //the time of the input event that last changed a tile, 0 if there hasn't been one
+    private long inputTime = 0;
+    
+    //the cells changed by the current batch
+    private final ChangeSet changes;
+    
+    //how many batches have been started and not committed, they can be nested
+    private int batch = 0;
+    
+    //the objects notified when a batch is committed
+    private final List<BoardListener> listeners;
+    
+    //the events that have happened on this board
+    private final BoardEvents events = new BoardEvents();
+    
+    //the index of the tile selected at the start of each board that can be solved without guessing, -1 when the boards are random
+    private int startTile = -1;
     //private List<Tile> tmpTiles;
     
     /**
@@ -63,6 +88,10 @@ public final class Board extends Sprite implements Disposable
         
         //store the final number
         this.mines = mines;
+        
+        //track the changes made to the board
+        this.changes = new ChangeSet(columns * rows);
+        this.listeners = new ArrayList<>();
     }
     
     @Override
@@ -83,39 +112,256 @@ public final class Board extends Sprite implements Disposable
         
         tmpCells.clear();
         tmpCells = null;
+        
+        listeners.clear();
     }
     
     /**
-     * Create the board with the set dimensions/mines
+     * Add an object to be notified when a batch of changes is committed
+     * @param listener The listener
+     */
+    public void addListener(final BoardListener listener)
+    {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Remove an object so it is no longer notified of changes
+     * @param listener The listener
+     */
+    public void removeListener(final BoardListener listener)
+    {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Start a batch of changes.<br>
+     * Every change made until the matching commit() is sent to the listeners at once, batches can be nested.
+     */
+    public void begin()
+    {
+        batch++;
+    }
+    
+    /**
+     * Finish a batch of changes.<br>
+     * When the outer most batch is committed the listeners are notified once if anything has changed.
+     */
+    public void commit()
+    {
+        if (batch > 0)
+            batch--;
+        
+        //we are still within a batch or nothing has changed
+        if (batch > 0 || changes.getCount() == 0)
+            return;
+        
+        for (int index = 0; index < listeners.size(); index++)
+        {
+            listeners.get(index).onChange(this, changes);
+        }
+        
+        changes.clear();
+    }
+    
+    /**
+     * Set the tile selected at the start of each board, this is used for boards that can be solved without guessing.<br>
+     * The layouts of these boards come from a BoardFactory which knows where the start tile is.
+     * @param startTile The index of the tile in row-major order, -1 for random boards
+     */
+    public void setStartTile(final int startTile)
+    {
+        this.startTile = startTile;
+    }
+    
+    /**
+     * Get the tile selected at the start of each board
+     * @return The index of the tile in row-major order, -1 for random boards
+     */
+    public int getStartTile()
+    {
+        return this.startTile;
+    }
+    
+    /**
+     * Are the boards generated so they can be solved without guessing
+     * @return true if so, false otherwise
+     */
+    public boolean hasNoGuess()
+    {
+        return (this.startTile >= 0);
+    }
+    
+    /**
+     * Get the events that have happened on this board
+     * @return The events, consumers poll them with their own cursor
+     */
+    public BoardEvents getEvents()
+    {
+        return this.events;
+    }
+    
+    /**
+     * Add an event for the tile
+     * @param type The type of event
+     * @param tile The tile
+     */
+    private void addEvent(final BoardEvents.Type type, final Tile tile)
+    {
+        events.add(type, (int)tile.getCol(), (int)tile.getRow());
+    }
+    
+    /**
+     * Mark the tile as changed in the current batch
+     * @param tile The tile that has changed
+     */
+    private void markChanged(final Tile tile)
+    {
+        modifications++;
+        changes.add(((int)tile.getRow() * columns) + (int)tile.getCol());
+    }
+    
+    /**
+     * Change the state of the tile
+     * @param tile The tile
+     * @param state The new state
+     */
+    private void setState(final Tile tile, final Tile.State state)
+    {
+        if (tile.getStateOrdinal() == state.ordinal())
+            return;
+        
+        tile.setState(state);
+        markChanged(tile);
+    }
+    
+    /**
+     * Mark the tile as completed and show the number of neighboring mines
+     * @param tile The tile
+     * @param count The number of neighboring mines
+     * @throws Exception 
+     */
+    private void setCompleted(final Tile tile, final int count) throws Exception
+    {
+        tile.setCompleted(count);
+        markChanged(tile);
+        addEvent(BoardEvents.Type.Reveal, tile);
+    }
+    
+    /**
+     * Create the board with the set dimensions/mines, the mines are placed at random.<br>
+     * Boards that can be solved without guessing need a layout from a BoardFactory instead.
      * @param random Object used for random decisions
      */
     public void reset(final Random random)
     {
+        reset(random, null);
+    }
+    
+    /**
+     * Create the board with the set dimensions/mines using a layout that has already been generated
+     * @param layout The layout, true for each tile that is a mine
+     */
+    public void reset(final boolean[] layout)
+    {
+        reset(null, layout);
+    }
+    
+    /**
+     * Create the board with the set dimensions/mines
+     * @param random Object used for random decisions, only used if there is no layout
+     * @param layout The layout, true for each tile that is a mine, null to generate one
+     */
+    private void reset(final Random random, final boolean[] layout)
+    {
+        final long start = Events.start();
+        
+        begin();
+        
         //reset win/lose flags
         this.solved = false;
         this.lost = false;
         
-        //clear list of tiles
-        this.tiles.clear();
-        
-        for (int row = 0; row < rows; row++)
+        if (tiles.size() == columns * rows)
         {
-            for (int column = 0; column < columns; column++)
+            //the board size never changes so the existing tiles can be used again
+            for (int index = 0; index < tiles.size(); index++)
             {
-                //create new tile
-                Tile tile = new Original();
-                
-                //set location of tile
-                tile.setCol(column);
-                tile.setRow(row);
-                
-                //add tile to list
-                tiles.add(tile);
+                tiles.get(index).reset();
             }
         }
+        else
+        {
+            //clear list of tiles
+            this.tiles.clear();
+            
+            for (int row = 0; row < rows; row++)
+            {
+                for (int column = 0; column < columns; column++)
+                {
+                    //create new tile
+                    Tile tile = new Original();
+                    
+                    //set location of tile
+                    tile.setCol(column);
+                    tile.setRow(row);
+                    
+                    //add tile to list
+                    tiles.add(tile);
+                }
+            }
+        }
+        
+        //every tile is new
+        changes.addAll();
+        events.add(BoardEvents.Type.Reset, -1, -1);
+        
+        if (layout != null)
+        {
+            //the layout has already been generated
+            placeMines(layout);
+        }
+        else
+        {
+            //place the mines on the board
+            placeMines(random);
+        }
         
-        //place the mines on the board
-        placeMines(random);
+        commit();
+        
+        Events.commit(Events.Type.BoardReset, start, columns * rows, mines);
+    }
+    
+    /**
+     * Place the mines from a generated layout, if the board is solved without guessing the start tile is selected
+     * @param layout The layout, true for each tile that is a mine
+     */
+    private void placeMines(final boolean[] layout)
+    {
+        for (int index = 0; index < layout.length; index++)
+        {
+            tiles.get(index).setMine(layout[index]);
+        }
+        
+        if (!hasNoGuess())
+            return;
+        
+        //the start tile has no neighboring mines so it will open up an area to get started
+        final Tile tile = tiles.get(startTile);
+        
+        try
+        {
+            selectTile(tile);
+            
+            List<Tile> check = new ArrayList<>();
+            check.add(tile);
+            
+            open(check);
+        }
+        catch (Exception e)
+        {
+            e.printStackTrace();
+        }
     }
     
     /**
@@ -239,13 +485,37 @@ public final class Board extends Sprite implements Disposable
      */
     public Tile getTile(final double column, final double row)
     {
-        for (Tile tile : getTiles())
-        {
-            if ((int)tile.getCol() == column && (int)tile.getRow() == row)
-                return tile;
-        }
+        //the location is not on the board
+        if (column < 0 || column >= columns || row < 0 || row >= rows || getTiles().isEmpty())
+            return null;
+        
+        //the tiles are stored one row after the other
+        return getTiles().get(((int)row * columns) + (int)column);
+    }
+    
+    /**
+     * Get the tile that contains the specified location
+     * @param point Location of the mouse
+     * @return Tile, if not found null is returned
+     */
+    private Tile getTile(final Point point)
+    {
+        if (getTiles().isEmpty())
+            return null;
+        
+        //all tiles have the same size so we can calculate the column/row from the first tile
+        final Tile first = getTiles().get(0);
+        
+        final int column = (int)Math.floor((point.x - first.getX()) / first.getWidth());
+        final int row = (int)Math.floor((point.y - first.getY()) / first.getHeight());
         
-        return null;
+        final Tile tile = getTile(column, row);
+        
+        //make sure the location is within the tile
+        if (tile == null || !tile.getRectangle().contains(point))
+            return null;
+        
+        return tile;
     }
     
     /**
@@ -415,12 +685,57 @@ public final class Board extends Sprite implements Disposable
         return count;
     }
     
+    /**
+     * Play the sound effect.<br>
+     * The resources may not exist if the board is being played without a window (replay for example)
+     * @param resources Object containing all resources
+     * @param key The sound effect to play
+     */
+    private void playGameAudio(final Resources resources, final Keys key)
+    {
+        if (resources != null)
+            resources.playGameAudio(key);
+    }
+    
     /**
      * Determine what happens when the right mouse button has been released
      * @param point
      * @throws Exception 
      */
     public void updateRightReleased(final Point point, final Resources resources) throws Exception
+    {
+        updateRightReleased(point, resources, 0);
+    }
+    
+    /**
+     * Determine what happens when the right mouse button has been released
+     * @param point Location of the mouse
+     * @param resources Object containing all resources, may be null
+     * @param inputTime The time the input event was received, 0 if there wasn't one
+     * @throws Exception 
+     */
+    public void updateRightReleased(final Point point, final Resources resources, final long inputTime) throws Exception
+    {
+        begin();
+        
+        try
+        {
+            flag(point, resources, inputTime);
+        }
+        finally
+        {
+            commit();
+        }
+    }
+    
+    /**
+     * Flag, question or clear the tile at the specified location
+     * @param point Location of the mouse
+     * @param resources Object containing all resources, may be null
+     * @param inputTime The time the input event was received, 0 if there wasn't one
+     * @throws Exception 
+     */
+    private void flag(final Point point, final Resources resources, final long inputTime) throws Exception
     {
         for (Tile tile : getTiles())
         {
@@ -434,7 +749,7 @@ public final class Board extends Sprite implements Disposable
                 if (tile.isCompleted())
                 {
                     //play sound effect
-                    resources.playGameAudio(Keys.UnavailableSelection);
+                    playGameAudio(resources, Keys.UnavailableSelection);
                     
                     //exit method because we can only select 1 tile at a time
                     return;
@@ -444,29 +759,93 @@ public final class Board extends Sprite implements Disposable
                 {
                     case Blank:
                     case BlankPress:
-                        tile.setState(Tile.State.Flag);
+                        setState(tile, Tile.State.Flag);
+                        addEvent(BoardEvents.Type.Flag, tile);
                         
                         //play sound effect
-                        resources.playGameAudio(Keys.FlagTile);
+                        playGameAudio(resources, Keys.FlagTile);
                         break;
                         
                     case Flag:
-                        tile.setState(Tile.State.Question);
+                        setState(tile, Tile.State.Question);
+                        addEvent(BoardEvents.Type.Unflag, tile);
+                        addEvent(BoardEvents.Type.Question, tile);
                         break;
                         
                     case QuestionPress:
                     case Question:
-                        tile.setState(Tile.State.Blank);
+                        setState(tile, Tile.State.Blank);
+                        addEvent(BoardEvents.Type.Clear, tile);
                         break;
                         
                     default:
                         throw new Exception("Unknown state found.");
                 }
+                
+                //the tile has changed because of this input
+                if (inputTime != 0)
+                    this.inputTime = inputTime;
             }
         }
     }
     
+    /**
+     * Select the tile at the specified location
+     * @param point Location of the mouse
+     * @param resources Object containing all resources, may be null
+     * @param random Object used for random decisions
+     * @throws Exception 
+     */
     public void updateReleased(final Point point, final Resources resources, final Random random) throws Exception
+    {
+        updateReleased(point, resources, random, 0);
+    }
+    
+    /**
+     * Select the tile at the specified location
+     * @param point Location of the mouse
+     * @param resources Object containing all resources, may be null
+     * @param random Object used for random decisions
+     * @param inputTime The time the input event was received, 0 if there wasn't one
+     * @throws Exception 
+     */
+    public void updateReleased(final Point point, final Resources resources, final Random random, final long inputTime) throws Exception
+    {
+        final long start = Events.start();
+        
+        //no tiles have been revealed yet
+        this.revealed = 0;
+        
+        final int before = modifications;
+        
+        begin();
+        
+        try
+        {
+            reveal(point, resources, random);
+        }
+        finally
+        {
+            commit();
+        }
+        
+        //the tiles have changed because of this input, this includes selecting a mine
+        if (modifications != before && inputTime != 0)
+            this.inputTime = inputTime;
+        
+        Events.commit(Events.Type.BoardReveal, start, revealed, columns * rows);
+    }
+    
+    /**
+     * Get the time of the input event that last changed a tile
+     * @return Time in nanoseconds, 0 if there hasn't been one
+     */
+    public long getInputTime()
+    {
+        return this.inputTime;
+    }
+    
+    private void reveal(final Point point, final Resources resources, final Random random) throws Exception
     {
         for (Tile tile : getTiles())
         {
@@ -480,7 +859,7 @@ public final class Board extends Sprite implements Disposable
                 if (tile.isCompleted() || tile.isFlagged())
                 {
                     //play sound effect
-                    resources.playGameAudio(Keys.UnavailableSelection);
+                    playGameAudio(resources, Keys.UnavailableSelection);
                     
                     //exit method because we can select only one tile
                     return;
@@ -521,12 +900,12 @@ public final class Board extends Sprite implements Disposable
                 if (tile.getNumberCount() > 0)
                 {
                     //play sound effect
-                    resources.playGameAudio(Keys.SelectTile);
+                    playGameAudio(resources, Keys.SelectTile);
                 }
                 else
                 {
                     //play sound effect
-                    resources.playGameAudio(Keys.Opening);
+                    playGameAudio(resources, Keys.Opening);
                     
                     //list of tiles to check
                     List<Tile> check = new ArrayList<>();
@@ -534,29 +913,8 @@ public final class Board extends Sprite implements Disposable
                     //add tile to list
                     check.add(tile);
 
-                    //continue until we have selected all open tiles
-                    while (!check.isEmpty())
-                    {
-                        //get a list of the tiles neighbors from the first tile in our list
-                        final List<Tile> neighbors = getAdjacentTiles(check.get(0));
-
-                        for (Tile tmp : neighbors)
-                        {
-                            //make sure the tile has not already been completed
-                            if (!tmp.isCompleted())
-                            {
-                                //select the tile
-                                selectTile(tmp);
-                                
-                                //if this tile also has no mines we will need to check its neighbors
-                                if (tmp.getNumberCount() == 0)
-                                    check.add(tmp);
-                            }
-                        }
-
-                        //now that step is completed remove first tile from list
-                        check.remove(0);
-                    }
+                    //select all open tiles
+                    open(check);
                 }
                 
                 //after our selection check if the board has been solved
@@ -565,6 +923,150 @@ public final class Board extends Sprite implements Disposable
         }
     }
     
+    /**
+     * Select every neighbor of the open tiles, any neighbor that is also open will have its neighbors selected as well
+     * @param check List of open tiles that have already been selected
+     * @throws Exception 
+     */
+    private void open(final List<Tile> check) throws Exception
+    {
+        //the tiles are added to the end of the list so we only need to walk through it once
+        for (int index = 0; index < check.size(); index++)
+        {
+            for (Tile tmp : getAdjacentTiles(check.get(index)))
+            {
+                //make sure the tile has not already been completed
+                if (!tmp.isCompleted())
+                {
+                    //select the tile
+                    selectTile(tmp);
+                    
+                    //if this tile also has no mines we will need to check its neighbors
+                    if (tmp.getNumberCount() == 0)
+                        check.add(tmp);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Chord the tile at the specified location.<br>
+     * If the number of flagged neighbors matches the number on the tile all of the other neighbors are selected at once.
+     * @param point Location of the mouse
+     * @param resources Object containing all resources, may be null
+     * @throws Exception 
+     */
+    public void updateChord(final Point point, final Resources resources) throws Exception
+    {
+        updateChord(point, resources, 0);
+    }
+    
+    /**
+     * Chord the tile at the specified location.<br>
+     * If the number of flagged neighbors matches the number on the tile all of the other neighbors are selected at once.
+     * @param point Location of the mouse
+     * @param resources Object containing all resources, may be null
+     * @param inputTime The time the input event was received, 0 if there wasn't one
+     * @throws Exception 
+     */
+    public void updateChord(final Point point, final Resources resources, final long inputTime) throws Exception
+    {
+        begin();
+        
+        try
+        {
+            chord(point, resources, inputTime);
+        }
+        finally
+        {
+            commit();
+        }
+    }
+    
+    /**
+     * Select every neighbor of the tile at the specified location if the flags match the number on the tile
+     * @param point Location of the mouse
+     * @param resources Object containing all resources, may be null
+     * @param inputTime The time the input event was received, 0 if there wasn't one
+     * @throws Exception 
+     */
+    private void chord(final Point point, final Resources resources, final long inputTime) throws Exception
+    {
+        final long start = Events.start();
+        
+        //no tiles have been revealed yet
+        this.revealed = 0;
+        
+        final int before = modifications;
+        
+        final Tile tile = getTile(point);
+        
+        //we can only chord a number that has been selected
+        if (tile == null || !tile.isCompleted() || tile.getNumberCount() == 0 || hasLost() || hasSolved())
+            return;
+        
+        final List<Tile> neighbors = getAdjacentTiles(tile);
+        
+        int flagged = 0;
+        
+        for (Tile tmp : neighbors)
+        {
+            if (tmp.isFlagged())
+                flagged++;
+        }
+        
+        //the flags have to match the number on the tile
+        if (flagged != tile.getNumberCount())
+        {
+            //play sound effect
+            playGameAudio(resources, Keys.UnavailableSelection);
+            return;
+        }
+        
+        //the open tiles we select, their neighbors will be selected afterwards
+        List<Tile> check = new ArrayList<>();
+        
+        for (Tile tmp : neighbors)
+        {
+            //skip selected and flagged tiles
+            if (tmp.isCompleted() || tmp.isFlagged())
+                continue;
+            
+            //select the tile
+            selectTile(tmp);
+            
+            //if the player hit a mine the player loses
+            if (tmp.isMine())
+                break;
+            
+            //if this tile has no mines we will need to check its neighbors
+            if (tmp.getNumberCount() == 0)
+                check.add(tmp);
+        }
+        
+        //nothing was selected
+        if (revealed == 0 && !hasLost())
+            return;
+        
+        if (!hasLost())
+        {
+            //select all open tiles in one pass
+            open(check);
+            
+            //play sound effect
+            playGameAudio(resources, check.isEmpty() ? Keys.SelectTile : Keys.Opening);
+            
+            //after our selection check if the board has been solved
+            checkSolved();
+        }
+        
+        //the tiles have changed because of this input, this includes selecting a mine
+        if (modifications != before && inputTime != 0)
+            this.inputTime = inputTime;
+        
+        Events.commit(Events.Type.BoardReveal, start, revealed, columns * rows);
+    }
+    
     /**
      * Mark the tile as selected
      * @param tile 
@@ -580,7 +1082,8 @@ public final class Board extends Sprite implements Disposable
             setCompleted();
 
             //markt the tile we selected so we know
-            tile.setState(Tile.State.MineSelection);
+            setState(tile, Tile.State.MineSelection);
+            addEvent(BoardEvents.Type.MineHit, tile);
         }
         else
         {
@@ -588,7 +1091,10 @@ public final class Board extends Sprite implements Disposable
             final int count = getAdjacentMineCount(tile);
 
             //mark as completed so we can no longer select again
-            tile.setCompleted(count);
+            setCompleted(tile, count);
+            
+            //keep track of how many tiles were revealed
+            revealed++;
         }
     }
     
@@ -648,6 +1154,7 @@ public final class Board extends Sprite implements Disposable
         
         //if we have reached this point the board has been solved
         setWin();
+        events.add(BoardEvents.Type.Solved, -1, -1);
     }
     
     /**
@@ -659,16 +1166,17 @@ public final class Board extends Sprite implements Disposable
         for (Tile tmp : getTiles())
         {
             tmp.setCompleted();
+            markChanged(tmp);
 
             if (tmp.isMine())
             {
                 if (tmp.isFlagged())
                 {
-                    tmp.setState(Tile.State.MineFlag);
+                    setState(tmp, Tile.State.MineFlag);
                 }
                 else
                 {
-                    tmp.setState(Tile.State.MineReveal);
+                    setState(tmp, Tile.State.MineReveal);
                 }
             }
         }
@@ -711,6 +1219,24 @@ public final class Board extends Sprite implements Disposable
     }
     
     public void updatePressed(final Point point)
+    {
+        begin();
+        press(point);
+        commit();
+    }
+    
+    public void updateDragged(final Point point)
+    {
+        begin();
+        press(point);
+        commit();
+    }
+    
+    /**
+     * Press the tile at the specified location and release all others
+     * @param point Location of the mouse
+     */
+    private void press(final Point point)
     {
         for (Tile tile : getTiles())
         {
@@ -724,11 +1250,11 @@ public final class Board extends Sprite implements Disposable
                 {
                     case QuestionPress:
                     case Question:
-                        tile.setState(Tile.State.QuestionPress);
+                        setState(tile, Tile.State.QuestionPress);
                         break;
                         
                     default:
-                        tile.setState(Tile.State.BlankPress);
+                        setState(tile, Tile.State.BlankPress);
                         break;
                 }
             }
@@ -738,66 +1264,177 @@ public final class Board extends Sprite implements Disposable
                 {
                     case QuestionPress:
                     case Question:
-                        tile.setState(Tile.State.Question);
+                        setState(tile, Tile.State.Question);
                         break;
                         
                     default:
-                        tile.setState(Tile.State.Blank);
+                        setState(tile, Tile.State.Blank);
                         break;
                 }
             }
         }
     }
     
-    public void updateDragged(final Point point)
+    /**
+     * Get the number of bytes needed to save this board.<br>
+     * Each cell needs 1 bit for the mine, 1 bit for completion and 4 bits for the state.
+     * @return The number of bytes
+     */
+    public int getSaveSize()
     {
-        for (Tile tile : getTiles())
+        final int cells = columns * rows;
+        
+        return 1 + (2 * ((cells + 7) / 8)) + ((cells + 1) / 2);
+    }
+    
+    /**
+     * Make sure the whole board can be read from the buffer, nothing is changed.<br>
+     * The buffer is moved past the board.
+     * @param buffer Where the board would be read from
+     * @throws Exception If the buffer doesn't contain the whole board
+     */
+    public void check(final ByteBuffer buffer) throws Exception
+    {
+        if (buffer.remaining() < getSaveSize())
+            throw new Exception("Saved board is incomplete.");
+        
+        buffer.position(buffer.position() + getSaveSize());
+    }
+    
+    /**
+     * Write the current board to the buffer.<br>
+     * The mines are written as a bitset, followed by the completed tiles as a bitset, followed by the state of each tile 2 per byte.
+     * @param buffer Where the board is written to
+     */
+    public void write(final ByteBuffer buffer)
+    {
+        //win/lose flags
+        buffer.put((byte)((hasSolved() ? 1 : 0) | (hasLost() ? 2 : 0)));
+        
+        int bits = 0;
+        
+        for (int index = 0; index < tiles.size(); index++)
         {
-            //tile can no longer be selected or is flagged
-            if (tile.isCompleted() || tile.isFlagged())
-                continue;
+            if (tiles.get(index).isMine())
+                bits |= (1 << (index & 7));
             
-            if (tile.getRectangle().contains(point))
+            if ((index & 7) == 7 || index == tiles.size() - 1)
             {
-                switch(tile.getState())
-                {
-                    case QuestionPress:
-                    case Question:
-                        tile.setState(Tile.State.QuestionPress);
-                        break;
-                        
-                    default:
-                        tile.setState(Tile.State.BlankPress);
-                        break;
-                }
+                buffer.put((byte)bits);
+                bits = 0;
             }
-            else
+        }
+        
+        for (int index = 0; index < tiles.size(); index++)
+        {
+            if (tiles.get(index).isCompleted())
+                bits |= (1 << (index & 7));
+            
+            if ((index & 7) == 7 || index == tiles.size() - 1)
             {
-                switch(tile.getState())
-                {
-                    case QuestionPress:
-                    case Question:
-                        tile.setState(Tile.State.Question);
-                        break;
-                        
-                    default:
-                        tile.setState(Tile.State.Blank);
-                        break;
-                }
+                buffer.put((byte)bits);
+                bits = 0;
+            }
+        }
+        
+        for (int index = 0; index < tiles.size(); index++)
+        {
+            bits |= (tiles.get(index).getStateOrdinal() << ((index & 1) * 4));
+            
+            if ((index & 1) == 1 || index == tiles.size() - 1)
+            {
+                buffer.put((byte)bits);
+                bits = 0;
             }
         }
     }
     
     /**
-     * Draw all of the tiles
-     * @param graphics
-     * @param image 
+     * Read the board from the buffer, the existing tiles will be updated so no new tiles are created.
+     * @param buffer Where the board is read from
      */
-    public void render(final Graphics2D graphics, final Image image)
+    public void read(final ByteBuffer buffer)
     {
+        final byte flags = buffer.get();
+        
+        this.solved = ((flags & 1) != 0);
+        this.lost = ((flags & 2) != 0);
+        
+        int bits = 0;
+        
+        for (int index = 0; index < tiles.size(); index++)
+        {
+            if ((index & 7) == 0)
+                bits = buffer.get();
+            
+            tiles.get(index).setMine((bits & (1 << (index & 7))) != 0);
+        }
+        
+        for (int index = 0; index < tiles.size(); index++)
+        {
+            if ((index & 7) == 0)
+                bits = buffer.get();
+            
+            tiles.get(index).setCompleted((bits & (1 << (index & 7))) != 0);
+        }
+        
+        for (int index = 0; index < tiles.size(); index++)
+        {
+            if ((index & 1) == 0)
+                bits = buffer.get();
+            
+            tiles.get(index).setStateOrdinal((bits >> ((index & 1) * 4)) & 0x0F);
+        }
+        
+        //every tile may have changed
+        begin();
+        changes.addAll();
+        commit();
+        
+        //the consumers will need to start over with the restored board
+        events.add(BoardEvents.Type.Reset, -1, -1);
+        
         for (Tile tile : getTiles())
         {
-            tile.render(graphics, image);
+            if (tile.isCompleted() && !tile.isMine())
+            {
+                addEvent(BoardEvents.Type.Reveal, tile);
+            }
+            else if (tile.isFlagged())
+            {
+                addEvent(BoardEvents.Type.Flag, tile);
+            }
+            else if (tile.getState() == Tile.State.Question)
+            {
+                addEvent(BoardEvents.Type.Question, tile);
+            }
+        }
+    }
+    
+    /**
+     * Copy the state of every tile
+     * @param cells Where the state ordinal of each tile is written, in row-major order
+     */
+    public void copyStates(final byte[] cells)
+    {
+        for (int index = 0; index < tiles.size(); index++)
+        {
+            cells[index] = (byte)tiles.get(index).getStateOrdinal();
         }
     }
+    
+    /**
+     * Copy the state of the tiles that have changed
+     * @param cells Where the state ordinal of each tile is written, in row-major order
+     * @param dirty The tiles that have changed, this is cleared once they are copied
+     */
+    public void copyStates(final byte[] cells, final BitSet dirty)
+    {
+        for (int index = dirty.nextSetBit(0); index >= 0; index = dirty.nextSetBit(index + 1))
+        {
+            cells[index] = (byte)tiles.get(index).getStateOrdinal();
+        }
+        
+        dirty.clear();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,167 @@
+package com.gamesbykevin.minesweeper.board;
+
+/**
+ * A bounded ring of the events that happen on a board.<br>
+ * The board adds the events and any number of consumers poll them with their own cursor, nothing is allocated once created.<br>
+ * The events are added and polled on the update thread.
+ * @author GOD
+ */
+public final class BoardEvents
+{
+    /**
+     * The different events that can happen on a board
+     */
+    public enum Type
+    {
+        //a new board was generated or restored, consumers should forget what they know about the board
+        Reset,
+        
+        //a tile was selected and shows the number of neighboring mines
+        Reveal,
+        
+        //a tile was flagged
+        Flag,
+        
+        //a flag was removed from a tile
+        Unflag,
+        
+        //a tile was marked with a question
+        Question,
+        
+        //a question was removed from a tile
+        Clear,
+        
+        //a mine was selected
+        MineHit,
+        
+        //every tile that isn't a mine has been selected
+        Solved,
+    }
+    
+    //the number of events kept, must be a power of 2
+    private static final int CAPACITY = 4096;
+    
+    //mask to get the slot from a sequence number
+    private static final int MASK = CAPACITY - 1;
+    
+    //cache the types so we don't create a new array every time
+    private static final Type[] TYPES = Type.values();
+    
+    //the type and location of each event
+    private final byte[] types = new byte[CAPACITY];
+    private final short[] columns = new short[CAPACITY];
+    private final short[] rows = new short[CAPACITY];
+    
+    //sequence of the next event that will be added
+    private long sequence = 0;
+    
+    /**
+     * Add an event
+     * @param type The type of event
+     * @param column The column of the tile, -1 if the event isn't for a tile
+     * @param row The row of the tile, -1 if the event isn't for a tile
+     */
+    void add(final Type type, final int column, final int row)
+    {
+        final int slot = (int)(sequence & MASK);
+        
+        types[slot] = (byte)type.ordinal();
+        columns[slot] = (short)column;
+        rows[slot] = (short)row;
+        
+        sequence++;
+    }
+    
+    /**
+     * Create a cursor that will poll every event added from now on
+     * @return Cursor
+     */
+    public Cursor createCursor()
+    {
+        return new Cursor();
+    }
+    
+    /**
+     * Each consumer polls the events with its own cursor
+     */
+    public final class Cursor
+    {
+        //sequence of the next event to read
+        private long next;
+        
+        //sequence of the current event
+        private long current = -1;
+        
+        //did the cursor fall so far behind that events were overwritten
+        private boolean missed = false;
+        
+        private Cursor()
+        {
+            this.next = sequence;
+        }
+        
+        /**
+         * Move to the next event.<br>
+         * If the cursor fell behind the oldest events are skipped and hasMissed() will return true.
+         * @return true if there is an event to read, false if there are no more
+         */
+        public boolean next()
+        {
+            //the events we haven't read have been overwritten
+            if (sequence - next > CAPACITY)
+            {
+                next = sequence - CAPACITY;
+                missed = true;
+            }
+            
+            if (next >= sequence)
+                return false;
+            
+            current = next;
+            next++;
+            
+            return true;
+        }
+        
+        /**
+         * Did this cursor miss any events since the last call.<br>
+         * When true the consumer should read the board again since it can't rely on the events.
+         * @return true if events were missed, false otherwise
+         */
+        public boolean hasMissed()
+        {
+            final boolean result = this.missed;
+            
+            this.missed = false;
+            
+            return result;
+        }
+        
+        /**
+         * Get the type of the current event
+         * @return Type
+         */
+        public Type getType()
+        {
+            return TYPES[types[(int)(current & MASK)]];
+        }
+        
+        /**
+         * Get the column of the current event
+         * @return The column of the tile, -1 if the event isn't for a tile
+         */
+        public int getColumn()
+        {
+            return columns[(int)(current & MASK)];
+        }
+        
+        /**
+         * Get the row of the current event
+         * @return The row of the tile, -1 if the event isn't for a tile
+         */
+        public int getRow()
+        {
+            return rows[(int)(current & MASK)];
+        }
+    }
+}
\ No newline at end of file
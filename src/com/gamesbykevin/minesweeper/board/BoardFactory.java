@@ -0,0 +1,345 @@
+package com.gamesbykevin.minesweeper.board;
+
+import com.gamesbykevin.framework.resources.Disposable;
+import com.gamesbykevin.minesweeper.metrics.Events;
+
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates mine layouts for a board ahead of time so a reset only has to place the mines.<br>
+ * When created with a seed every layout is generated from its own seed, which only depends on the seed and the number of the layout.<br>
+ * The same seed always gives the same boards no matter which thread generated them or how fast they are used.<br>
+ * When created with a random number generator the layouts are drawn from it in order, so they are always generated when taken (older replays).
+ * @author GOD
+ */
+public final class BoardFactory implements Runnable, Disposable
+{
+    //the number of layouts kept ready
+    private static final int POOL_SIZE = 4;
+    
+    //how long take() waits before the thread generating the layouts is given a normal priority (milliseconds)
+    private static final long WAIT_TIMEOUT = 50;
+    
+    //how many times the generator is asked for a layout that can be solved without guessing before we use one that may need a guess
+    private static final int VERIFY_LIMIT = 3;
+    
+    //the board size
+    private final int columns, rows, mines;
+    
+    //generates layouts that can be solved without guessing, null when the layouts are random
+    private final NoGuessGenerator generator;
+    
+    //the object used to generate every layout, only used while holding the lock of the factory
+    private final Random random;
+    
+    //the seed every layout seed is made from
+    private final long seed;
+    
+    //is each layout generated from its own seed, otherwise the layouts are drawn from the random number generator in order
+    private final boolean seeded;
+    
+    //the layouts ready to be used, in the order they were generated
+    private final BlockingQueue<Layout> pool;
+    
+    //the number of the next layout that will be taken, only used by the thread taking the layouts
+    private int next = 0;
+    
+    //the thread filling the pool, null if the layouts are generated when needed
+    private Thread thread;
+    
+    //should the thread keep filling the pool
+    private volatile boolean running = false;
+    
+    //the cells a mine can be placed on
+    private final int[] cells;
+    
+    /**
+     * A layout and its number
+     */
+    private static final class Layout
+    {
+        //the number of the layout, starting at 0
+        private final int index;
+        
+        //true for each cell that is a mine
+        private final boolean[] mines;
+        
+        private Layout(final int index, final boolean[] mines)
+        {
+            this.index = index;
+            this.mines = mines;
+        }
+    }
+    
+    /**
+     * Create a new factory, each layout is generated from its own seed so they can be generated in the background
+     * @param columns Board columns
+     * @param rows Board rows
+     * @param mines The number of mines
+     * @param noGuess Should the layouts be solvable without guessing
+     * @param seed The seed every layout seed is made from
+     */
+    public BoardFactory(final int columns, final int rows, final int mines, final boolean noGuess, final long seed)
+    {
+        this(columns, rows, mines, noGuess, new Random(seed), seed, true);
+    }
+    
+    /**
+     * Create a new factory, the layouts are drawn from the random number generator in order so they are always generated when taken
+     * @param columns Board columns
+     * @param rows Board rows
+     * @param mines The number of mines
+     * @param noGuess Should the layouts be solvable without guessing
+     * @param random Object used to generate the layouts, it should not be used by anything else
+     */
+    public BoardFactory(final int columns, final int rows, final int mines, final boolean noGuess, final Random random)
+    {
+        this(columns, rows, mines, noGuess, random, 0, false);
+    }
+    
+    private BoardFactory(final int columns, final int rows, final int mines, final boolean noGuess, final Random random, final long seed, final boolean seeded)
+    {
+        this.columns = columns;
+        this.rows = rows;
+        
+        //make sure there is at least 1 safe tile, just like the board
+        this.mines = (mines >= columns * rows) ? (columns * rows) - 1 : mines;
+        
+        final NoGuessGenerator tmp = (noGuess) ? new NoGuessGenerator(columns, rows, this.mines) : null;
+        
+        //there isn't enough room around the start tile so the layouts will be random
+        this.generator = (tmp != null && tmp.isPossible()) ? tmp : null;
+        
+        this.random = random;
+        this.seed = seed;
+        this.seeded = seeded;
+        this.pool = new ArrayBlockingQueue<>(POOL_SIZE);
+        this.cells = new int[columns * rows];
+    }
+    
+    /**
+     * Start generating layouts in the background.<br>
+     * If this isn't called, or the factory wasn't created with a seed, the layouts are generated when they are taken.
+     */
+    public void start()
+    {
+        if (thread != null || !seeded)
+            return;
+        
+        running = true;
+        
+        thread = new Thread(this, "Boards");
+        
+        //don't keep the application alive because of this thread
+        thread.setDaemon(true);
+        
+        //the game threads are more important
+        thread.setPriority(Thread.MIN_PRIORITY);
+        
+        thread.start();
+    }
+    
+    @Override
+    public void dispose()
+    {
+        stop();
+        
+        pool.clear();
+    }
+    
+    /**
+     * Stop the thread filling the pool, any layouts needed afterwards are generated when taken
+     */
+    private void stop()
+    {
+        running = false;
+        
+        if (thread != null)
+            thread.interrupt();
+        
+        thread = null;
+    }
+    
+    /**
+     * Keep the pool full until disposed
+     */
+    @Override
+    public void run()
+    {
+        try
+        {
+            for (int index = 0; running; index++)
+            {
+                //wait until there is room in the pool
+                pool.put(new Layout(index, generate(index)));
+            }
+        }
+        catch (InterruptedException e)
+        {
+            //the factory has been stopped
+        }
+        catch (RuntimeException e)
+        {
+            //take() will see the thread has stopped and generate the layouts itself
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Take the next layout.<br>
+     * When generating in the background this only waits if the pool has been used up, the thread is then given a normal priority so the wait is short.<br>
+     * If the thread has stopped or we are interrupted while waiting the layout is generated here instead.<br>
+     * Either way it is the same layout, since it only depends on the seed and its number.
+     * @return The layout, true for each cell that is a mine
+     */
+    public boolean[] take()
+    {
+        final int index = next++;
+        
+        while (thread != null)
+        {
+            final Layout layout;
+            
+            try
+            {
+                layout = pool.poll(WAIT_TIMEOUT, TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                //stop waiting, keep the interrupt for the caller
+                Thread.currentThread().interrupt();
+                stop();
+                continue;
+            }
+            
+            if (layout != null)
+            {
+                //the thread generates the layouts in order so this is the one we need
+                if (layout.index == index)
+                    return layout.mines;
+                
+                continue;
+            }
+            
+            //the thread failed so the layouts will be generated here
+            if (!thread.isAlive())
+            {
+                stop();
+                continue;
+            }
+            
+            //we are waiting on the thread so it shouldn't wait on the other threads
+            thread.setPriority(Thread.NORM_PRIORITY);
+        }
+        
+        //use what is left in the pool before generating the layouts here, skip any layout we have already generated ourselves
+        for (Layout layout = pool.poll(); layout != null; layout = pool.poll())
+        {
+            if (layout.index == index)
+                return layout.mines;
+        }
+        
+        return generate(index);
+    }
+    
+    /**
+     * Are the layouts solvable without guessing
+     * @return true if so, false otherwise
+     */
+    public boolean hasNoGuess()
+    {
+        return (generator != null);
+    }
+    
+    /**
+     * Get the tile the player starts from, it never has neighboring mines
+     * @return The index of the tile in row-major order, -1 if the layouts are random
+     */
+    public int getStart()
+    {
+        return (generator != null) ? generator.getStart() : -1;
+    }
+    
+    /**
+     * Generate the layout.<br>
+     * This is synchronized since the layout may be generated here while the stopped thread is finishing the last one.
+     * @param number The number of the layout, only used when each layout has its own seed
+     * @return The layout, true for each cell that is a mine
+     */
+    private synchronized boolean[] generate(final int number)
+    {
+        if (seeded)
+            random.setSeed(createSeed(seed, number));
+        
+        if (generator != null)
+            return generateNoGuess();
+        
+        final boolean[] layout = new boolean[columns * rows];
+        
+        for (int index = 0; index < cells.length; index++)
+        {
+            cells[index] = index;
+        }
+        
+        //pick the mines from all of the cells
+        for (int mine = 0; mine < mines; mine++)
+        {
+            final int pick = mine + random.nextInt(cells.length - mine);
+            
+            final int cell = cells[pick];
+            cells[pick] = cells[mine];
+            cells[mine] = cell;
+            
+            layout[cell] = true;
+        }
+        
+        return layout;
+    }
+    
+    /**
+     * Generate the next layout that can be solved without guessing.<br>
+     * If the generator keeps failing a layout that may need a guess is used and an event is recorded.
+     * @return The layout, true for each cell that is a mine
+     */
+    private boolean[] generateNoGuess()
+    {
+        final long start = Events.start();
+        
+        int checks = 0;
+        
+        for (int attempt = 0; attempt < VERIFY_LIMIT; attempt++)
+        {
+            final boolean[] layout = generator.generate(random);
+            
+            if (layout != null)
+                return layout;
+            
+            checks += generator.getChecks();
+        }
+        
+        Events.commit(Events.Type.NoGuessFailed, start, checks, mines);
+        
+        //the start tile is still safe, but the player may need to guess
+        return generator.generateUnverified(random);
+    }
+    
+    /**
+     * Create the seed of a layout.<br>
+     * The bits are mixed so layouts with numbers next to each other don't start with similar random numbers.
+     * @param seed The seed every layout seed is made from
+     * @param index The number of the layout
+     * @return The seed of the layout
+     */
+    private static long createSeed(final long seed, final int index)
+    {
+        long mixed = seed + ((index + 1) * 0x9E3779B97F4A7C15L);
+        
+        mixed = (mixed ^ (mixed >>> 30)) * 0xBF58476D1CE4E5B9L;
+        mixed = (mixed ^ (mixed >>> 27)) * 0x94D049BB133111EBL;
+        
+        return mixed ^ (mixed >>> 31);
+    }
+}
\ No newline at end of file
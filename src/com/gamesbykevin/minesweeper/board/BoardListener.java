@@ -0,0 +1,16 @@
+package com.gamesbykevin.minesweeper.board;
+
+/**
+ * Notified once for every batch of changes made to a board
+ * @author GOD
+ */
+public interface BoardListener
+{
+    /**
+     * The batch of changes has been committed.<br>
+     * The change set is only valid during this call.
+     * @param board The board that has changed
+     * @param changes The cells that have changed
+     */
+    public void onChange(final Board board, final ChangeSet changes);
+}
\ No newline at end of file
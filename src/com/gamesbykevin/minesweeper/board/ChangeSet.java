@@ -0,0 +1,99 @@
+package com.gamesbykevin.minesweeper.board;
+
+import java.util.BitSet;
+
+/**
+ * The cells of a board that have changed in a single batch.<br>
+ * The cells are identified by their index in row-major order.
+ * @author GOD
+ */
+public final class ChangeSet
+{
+    //which cells have changed
+    private final BitSet cells;
+    
+    //the number of cells that have changed
+    private int count = 0;
+    
+    //the total number of cells on the board
+    private final int size;
+    
+    /**
+     * Create a new change set
+     * @param size The total number of cells on the board
+     */
+    ChangeSet(final int size)
+    {
+        this.size = size;
+        this.cells = new BitSet(size);
+    }
+    
+    /**
+     * Mark the cell as changed
+     * @param index The index of the cell
+     */
+    void add(final int index)
+    {
+        if (!cells.get(index))
+        {
+            cells.set(index);
+            count++;
+        }
+    }
+    
+    /**
+     * Mark every cell as changed
+     */
+    void addAll()
+    {
+        cells.set(0, size);
+        count = size;
+    }
+    
+    /**
+     * Remove all changes
+     */
+    void clear()
+    {
+        cells.clear();
+        count = 0;
+    }
+    
+    /**
+     * Get the number of cells that have changed
+     * @return The number of cells
+     */
+    public int getCount()
+    {
+        return this.count;
+    }
+    
+    /**
+     * Has the cell changed
+     * @param index The index of the cell
+     * @return true if the cell has changed, false otherwise
+     */
+    public boolean hasChanged(final int index)
+    {
+        return cells.get(index);
+    }
+    
+    /**
+     * Get the next cell that has changed
+     * @param index The index to start looking from
+     * @return The index of the changed cell, -1 if there are no more
+     */
+    public int getNext(final int index)
+    {
+        return cells.nextSetBit(index);
+    }
+    
+    /**
+     * Add the changed cells to the specified set
+     * @param destination Where the changed cells are added
+     */
+    public void copyTo(final BitSet destination)
+    {
+        destination.or(cells);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,263 @@
+package com.gamesbykevin.minesweeper.board;
+
+import com.gamesbykevin.minesweeper.menu.option.BoardDifficulty;
+import com.gamesbykevin.minesweeper.metrics.Histogram;
+
+import java.util.Random;
+
+/**
+ * Generates mine layouts that can be solved from the start cell without guessing.<br>
+ * Each layout is checked by the solver, when the solver gets stuck a mine on the edge of what has been solved is moved somewhere unseen and the layout is checked again.
+ * @author GOD
+ */
+public final class NoGuessGenerator
+{
+    //how many mines can be moved before we start over with a new layout
+    private static final int REPAIR_LIMIT = 64;
+    
+    //how many new layouts we try before giving up
+    private static final int ATTEMPT_LIMIT = 200;
+    
+    //the board size
+    private final int columns, rows, size, mines;
+    
+    //the cell where the player starts
+    private final int start;
+    
+    //checks if a layout can be solved
+    private final Solver solver;
+    
+    //the cells a mine can be placed on or moved from
+    private final int[] cells;
+    
+    //the number of layouts checked by the solver for the last board generated
+    private int checks = 0;
+    
+    /**
+     * Create a new generator
+     * @param columns Board columns
+     * @param rows Board rows
+     * @param mines The number of mines
+     */
+    public NoGuessGenerator(final int columns, final int rows, final int mines)
+    {
+        this.columns = columns;
+        this.rows = rows;
+        this.size = columns * rows;
+        this.mines = mines;
+        this.start = ((rows / 2) * columns) + (columns / 2);
+        this.solver = new Solver(columns, rows);
+        this.cells = new int[size];
+    }
+    
+    /**
+     * Can a layout be generated, the cells around the start need to be free of mines
+     * @return true if there is enough room for the mines, false otherwise
+     */
+    public boolean isPossible()
+    {
+        return (mines <= size - 9);
+    }
+    
+    /**
+     * Get the cell where the player starts, it will always have no neighboring mines
+     * @return The index of the cell in row-major order
+     */
+    public int getStart()
+    {
+        return this.start;
+    }
+    
+    /**
+     * Get the column of the start cell
+     * @return Column
+     */
+    public int getStartColumn()
+    {
+        return (start % columns);
+    }
+    
+    /**
+     * Get the row of the start cell
+     * @return Row
+     */
+    public int getStartRow()
+    {
+        return (start / columns);
+    }
+    
+    /**
+     * Get the number of layouts checked by the solver for the last board generated
+     * @return The number of checks
+     */
+    public int getChecks()
+    {
+        return this.checks;
+    }
+    
+    /**
+     * Generate a new layout that the solver has verified
+     * @param random Object used to make random decisions
+     * @return The layout, true for each cell that is a mine. null if no layout could be verified within the limits
+     */
+    public boolean[] generate(final Random random)
+    {
+        final boolean[] layout = new boolean[size];
+        
+        this.checks = 0;
+        
+        for (int attempt = 0; attempt < ATTEMPT_LIMIT; attempt++)
+        {
+            place(layout, random);
+            
+            for (int repair = 0; repair <= REPAIR_LIMIT; repair++)
+            {
+                checks++;
+                
+                if (solver.solve(layout, mines, start))
+                    return layout;
+                
+                //if the layout can't be repaired start over
+                if (!repair(layout, random))
+                    break;
+            }
+        }
+        
+        //the layout may need a guess
+        return null;
+    }
+    
+    /**
+     * Generate a new layout without checking it with the solver, the start cell and its neighbors will never be a mine
+     * @param random Object used to make random decisions
+     * @return The layout, true for each cell that is a mine
+     */
+    public boolean[] generateUnverified(final Random random)
+    {
+        final boolean[] layout = new boolean[size];
+        
+        place(layout, random);
+        
+        return layout;
+    }
+    
+    /**
+     * Place the mines at random locations, the start cell and its neighbors will never be a mine
+     * @param layout Where the mines are placed
+     * @param random Object used to make random decisions
+     */
+    private void place(final boolean[] layout, final Random random)
+    {
+        int count = 0;
+        
+        for (int index = 0; index < size; index++)
+        {
+            layout[index] = false;
+            
+            if (!isStartArea(index))
+                cells[count++] = index;
+        }
+        
+        //pick the mines from the available cells
+        for (int mine = 0; mine < mines; mine++)
+        {
+            final int pick = mine + random.nextInt(count - mine);
+            
+            final int cell = cells[pick];
+            cells[pick] = cells[mine];
+            cells[mine] = cell;
+            
+            layout[cell] = true;
+        }
+    }
+    
+    /**
+     * Move a mine next to the solved area to an unseen cell so the solver may get further
+     * @param layout The layout that couldn't be solved
+     * @param random Object used to make random decisions
+     * @return true if a mine was moved, false if there is nothing we can move
+     */
+    private boolean repair(final boolean[] layout, final Random random)
+    {
+        //the mines next to the solved area, they are stored at the start of the list
+        int edge = 0;
+        
+        //the unseen safe cells, they are stored at the end of the list
+        int unseen = 0;
+        
+        for (int index = 0; index < size; index++)
+        {
+            if (!solver.isUnknown(index) || isStartArea(index))
+                continue;
+            
+            final boolean neighbor = solver.hasRevealedNeighbor(index);
+            
+            if (layout[index] && neighbor)
+            {
+                cells[edge++] = index;
+            }
+            else if (!layout[index] && !neighbor)
+            {
+                cells[size - 1 - unseen] = index;
+                unseen++;
+            }
+        }
+        
+        if (edge == 0 || unseen == 0)
+            return false;
+        
+        layout[cells[random.nextInt(edge)]] = false;
+        layout[cells[size - 1 - random.nextInt(unseen)]] = true;
+        
+        return true;
+    }
+    
+    /**
+     * Is the cell the start cell or one of its neighbors
+     * @param index The index of the cell
+     * @return true if so, false otherwise
+     */
+    private boolean isStartArea(final int index)
+    {
+        return (Math.abs((index % columns) - getStartColumn()) <= 1 && Math.abs((index / columns) - getStartRow()) <= 1);
+    }
+    
+    /**
+     * Measure how long it takes to generate a board for each difficulty
+     * @param args The number of boards to generate for each difficulty, optional
+     */
+    public static void main(String[] args)
+    {
+        final int count = (args.length > 0) ? Integer.parseInt(args[0]) : 200;
+        
+        final Random random = new Random(0);
+        
+        for (BoardDifficulty.Selections selection : BoardDifficulty.Selections.values())
+        {
+            final NoGuessGenerator generator = new NoGuessGenerator(selection.getColumns(), selection.getRows(), selection.getMines());
+            
+            final Histogram histogram = new Histogram();
+            
+            long checks = 0;
+            int verified = 0;
+            
+            for (int index = 0; index < count; index++)
+            {
+                final long start = System.nanoTime();
+                
+                final boolean[] layout = generator.generate(random);
+                
+                histogram.record(System.nanoTime() - start);
+                
+                checks += generator.getChecks();
+                
+                if (layout != null)
+                    verified++;
+            }
+            
+            System.out.println(selection + " (" + selection.getColumns() + "x" + selection.getRows() + ", " + selection.getMines() + " mines) - " + count + " boards, " + verified + " verified");
+            System.out.println("    microseconds p50: " + (histogram.getPercentile(50) / 1000) + ", p99: " + (histogram.getPercentile(99) / 1000) + ", max: " + (histogram.getMax() / 1000));
+            System.out.println("    solver checks per board: " + (checks / count));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.gamesbykevin.minesweeper.board;
+
+import com.gamesbykevin.minesweeper.board.tile.Tile;
+import com.gamesbykevin.minesweeper.menu.option.BoardDifficulty;
+import com.gamesbykevin.minesweeper.metrics.Metrics;
+
+import java.util.Random;
+
+/**
+ * Measures how many bytes are allocated when a board is reset from a generated layout, the way the game resets its boards.<br>
+ * Only the first reset should allocate since the tiles are reused afterwards.<br>
+ * Resetting with reset(Random), which is only used by old replays, still allocates a Cell for each tile when placing the mines and isn't measured here.
+ * @author GOD
+ */
+public final class ResetBenchmark
+{
+    private ResetBenchmark()
+    {
+        //static methods only
+    }
+    
+    /**
+     * Measure how many bytes are allocated when a board is reset for each difficulty
+     * @param args The number of resets for each difficulty, optional
+     */
+    public static void main(String[] args)
+    {
+        final int count = (args.length > 0) ? Integer.parseInt(args[0]) : 200;
+        
+        for (BoardDifficulty.Selections selection : BoardDifficulty.Selections.values())
+        {
+            final Board board = new Board(selection.getColumns(), selection.getRows(), selection.getMines());
+            
+            //generate the layouts first so only the reset is measured
+            final BoardFactory factory = new BoardFactory(selection.getColumns(), selection.getRows(), selection.getMines(), false, new Random(0));
+            final boolean[][] layouts = new boolean[count + 1][];
+            
+            for (int index = 0; index < layouts.length; index++)
+            {
+                layouts[index] = factory.take();
+            }
+            
+            //the first reset creates the tiles
+            long allocated = Metrics.getAllocatedBytes();
+            board.reset(layouts[0]);
+            final long first = Metrics.getAllocatedBytes() - allocated;
+            
+            final Tile tile = board.getTile(0, 0);
+            
+            allocated = Metrics.getAllocatedBytes();
+            
+            for (int index = 1; index < layouts.length; index++)
+            {
+                board.reset(layouts[index]);
+            }
+            
+            allocated = Metrics.getAllocatedBytes() - allocated;
+            
+            System.out.println(selection + " (" + selection.getColumns() + "x" + selection.getRows() + ", " + selection.getMines() + " mines) - " + count + " resets");
+            System.out.println("    bytes allocated by the first reset: " + first + ", per reset after: " + (allocated / count));
+            System.out.println("    tiles reused: " + (tile == board.getTile(0, 0)));
+        }
+    }
+}
\ No newline at end of file
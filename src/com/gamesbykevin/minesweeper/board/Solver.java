@@ -0,0 +1,408 @@
+package com.gamesbykevin.minesweeper.board;
+
+/**
+ * Solves a mine layout from a starting cell without guessing.<br>
+ * Only rules that give a certain result are used, if the solver gets stuck a player would have to guess.<br>
+ * The cells are identified by their index in row-major order and nothing is allocated while solving.
+ * @author GOD
+ */
+public final class Solver
+{
+    //the status of each cell
+    private static final byte UNKNOWN = 0;
+    private static final byte REVEALED = 1;
+    private static final byte FLAGGED = 2;
+    
+    //the maximum number of neighbors a cell can have
+    private static final int NEIGHBORS = 8;
+    
+    //the board size
+    private final int columns, rows, size;
+    
+    //the neighbors of each cell, each cell has room for 8
+    private final int[] neighbors;
+    
+    //the number of neighbors of each cell
+    private final byte[] neighborCount;
+    
+    //the number of neighboring mines of each cell
+    private final byte[] counts;
+    
+    //the status of each cell
+    private final byte[] status;
+    
+    //the cells waiting to have their neighbors revealed
+    private final int[] queue;
+    
+    //the number of mines in the layout
+    private int mineCount;
+    
+    //the number of cells revealed and flagged
+    private int revealed, flagged;
+    
+    /**
+     * Create a new solver for boards of the specified size
+     * @param columns Board columns
+     * @param rows Board rows
+     */
+    public Solver(final int columns, final int rows)
+    {
+        this.columns = columns;
+        this.rows = rows;
+        this.size = columns * rows;
+        
+        this.neighbors = new int[size * NEIGHBORS];
+        this.neighborCount = new byte[size];
+        this.counts = new byte[size];
+        this.status = new byte[size];
+        this.queue = new int[size];
+        
+        //the neighbors never change so figure them out once
+        for (int index = 0; index < size; index++)
+        {
+            final int column = index % columns;
+            final int row = index / columns;
+            
+            int count = 0;
+            
+            for (int y = row - 1; y <= row + 1; y++)
+            {
+                for (int x = column - 1; x <= column + 1; x++)
+                {
+                    if (x < 0 || y < 0 || x >= columns || y >= rows || (x == column && y == row))
+                        continue;
+                    
+                    neighbors[(index * NEIGHBORS) + count] = (y * columns) + x;
+                    count++;
+                }
+            }
+            
+            neighborCount[index] = (byte)count;
+        }
+    }
+    
+    /**
+     * Solve the layout starting from the specified cell.<br>
+     * The solver stops as soon as no rule can be applied.
+     * @param mines The layout, true for each cell that is a mine
+     * @param mineCount The number of mines in the layout
+     * @param start The index of the first cell selected
+     * @return true if every safe cell can be revealed without guessing, false otherwise
+     */
+    public boolean solve(final boolean[] mines, final int mineCount, final int start)
+    {
+        this.mineCount = mineCount;
+        this.revealed = 0;
+        this.flagged = 0;
+        
+        for (int index = 0; index < size; index++)
+        {
+            int count = 0;
+            
+            for (int n = 0; n < neighborCount[index]; n++)
+            {
+                if (mines[neighbors[(index * NEIGHBORS) + n]])
+                    count++;
+            }
+            
+            counts[index] = (byte)count;
+            status[index] = UNKNOWN;
+        }
+        
+        //we can't start on a mine
+        if (mines[start])
+            return false;
+        
+        reveal(start);
+        
+        while (revealed < size - mineCount)
+        {
+            //if none of the rules help we would have to guess
+            if (!applyNeighbors() && !applySubsets() && !applyRemaining())
+                return false;
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Has the cell been revealed by the last solve
+     * @param index The index of the cell
+     * @return true if revealed, false otherwise
+     */
+    public boolean isRevealed(final int index)
+    {
+        return (status[index] == REVEALED);
+    }
+    
+    /**
+     * Is the cell still unknown after the last solve
+     * @param index The index of the cell
+     * @return true if the cell was never revealed or flagged, false otherwise
+     */
+    public boolean isUnknown(final int index)
+    {
+        return (status[index] == UNKNOWN);
+    }
+    
+    /**
+     * Does the cell neighbor a revealed cell after the last solve
+     * @param index The index of the cell
+     * @return true if at least 1 neighbor has been revealed, false otherwise
+     */
+    public boolean hasRevealedNeighbor(final int index)
+    {
+        for (int n = 0; n < neighborCount[index]; n++)
+        {
+            if (status[neighbors[(index * NEIGHBORS) + n]] == REVEALED)
+                return true;
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Reveal the cell, if there are no neighboring mines the neighbors are revealed as well
+     * @param index The index of the cell
+     */
+    private void reveal(final int index)
+    {
+        if (status[index] != UNKNOWN)
+            return;
+        
+        int head = 0;
+        int tail = 0;
+        
+        status[index] = REVEALED;
+        revealed++;
+        queue[tail++] = index;
+        
+        while (head < tail)
+        {
+            final int current = queue[head++];
+            
+            //only open cells reveal their neighbors
+            if (counts[current] != 0)
+                continue;
+            
+            for (int n = 0; n < neighborCount[current]; n++)
+            {
+                final int neighbor = neighbors[(current * NEIGHBORS) + n];
+                
+                if (status[neighbor] == UNKNOWN)
+                {
+                    status[neighbor] = REVEALED;
+                    revealed++;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Flag the cell
+     * @param index The index of the cell
+     */
+    private void flag(final int index)
+    {
+        if (status[index] != UNKNOWN)
+            return;
+        
+        status[index] = FLAGGED;
+        flagged++;
+    }
+    
+    /**
+     * Count the neighbors of the cell with the specified status
+     * @param index The index of the cell
+     * @param value The status we are looking for
+     * @return The number of neighbors
+     */
+    private int countNeighbors(final int index, final byte value)
+    {
+        int count = 0;
+        
+        for (int n = 0; n < neighborCount[index]; n++)
+        {
+            if (status[neighbors[(index * NEIGHBORS) + n]] == value)
+                count++;
+        }
+        
+        return count;
+    }
+    
+    /**
+     * If a number has all of its mines flagged the other neighbors are safe.<br>
+     * If a number has as many unknown neighbors as missing mines they are all mines.
+     * @return true if a cell was revealed or flagged, false otherwise
+     */
+    private boolean applyNeighbors()
+    {
+        boolean progress = false;
+        
+        for (int index = 0; index < size; index++)
+        {
+            if (status[index] != REVEALED || counts[index] == 0)
+                continue;
+            
+            final int unknown = countNeighbors(index, UNKNOWN);
+            
+            if (unknown == 0)
+                continue;
+            
+            final int missing = counts[index] - countNeighbors(index, FLAGGED);
+            
+            if (missing == 0 || missing == unknown)
+            {
+                for (int n = 0; n < neighborCount[index]; n++)
+                {
+                    final int neighbor = neighbors[(index * NEIGHBORS) + n];
+                    
+                    if (missing == 0)
+                    {
+                        reveal(neighbor);
+                    }
+                    else
+                    {
+                        flag(neighbor);
+                    }
+                }
+                
+                progress = true;
+            }
+        }
+        
+        return progress;
+    }
+    
+    /**
+     * Compare each number with the numbers close to it.<br>
+     * If the unknown neighbors of one are all shared by the other, the rest of the other's unknown neighbors contain the difference in missing mines.
+     * @return true if a cell was revealed or flagged, false otherwise
+     */
+    private boolean applySubsets()
+    {
+        for (int a = 0; a < size; a++)
+        {
+            if (status[a] != REVEALED || counts[a] == 0)
+                continue;
+            
+            final int unknownA = countNeighbors(a, UNKNOWN);
+            
+            if (unknownA == 0)
+                continue;
+            
+            final int missingA = counts[a] - countNeighbors(a, FLAGGED);
+            
+            final int columnA = a % columns;
+            final int rowA = a / columns;
+            
+            //only numbers within 2 cells can share unknown neighbors
+            for (int row = Math.max(0, rowA - 2); row <= Math.min(rows - 1, rowA + 2); row++)
+            {
+                for (int column = Math.max(0, columnA - 2); column <= Math.min(columns - 1, columnA + 2); column++)
+                {
+                    final int b = (row * columns) + column;
+                    
+                    if (b == a || status[b] != REVEALED || counts[b] == 0)
+                        continue;
+                    
+                    final int unknownB = countNeighbors(b, UNKNOWN);
+                    
+                    //b needs more unknown neighbors than a for a to be a subset
+                    if (unknownB <= unknownA || !isSubset(a, b))
+                        continue;
+                    
+                    final int missing = (counts[b] - countNeighbors(b, FLAGGED)) - missingA;
+                    final int remaining = unknownB - unknownA;
+                    
+                    if (missing != 0 && missing != remaining)
+                        continue;
+                    
+                    //the unknown neighbors of b that aren't neighbors of a
+                    for (int n = 0; n < neighborCount[b]; n++)
+                    {
+                        final int neighbor = neighbors[(b * NEIGHBORS) + n];
+                        
+                        if (status[neighbor] != UNKNOWN || isNeighbor(a, neighbor))
+                            continue;
+                        
+                        if (missing == 0)
+                        {
+                            reveal(neighbor);
+                        }
+                        else
+                        {
+                            flag(neighbor);
+                        }
+                    }
+                    
+                    return true;
+                }
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Are all of the unknown neighbors of a also neighbors of b
+     * @param a The index of the first cell
+     * @param b The index of the second cell
+     * @return true if so, false otherwise
+     */
+    private boolean isSubset(final int a, final int b)
+    {
+        for (int n = 0; n < neighborCount[a]; n++)
+        {
+            final int neighbor = neighbors[(a * NEIGHBORS) + n];
+            
+            if (status[neighbor] == UNKNOWN && !isNeighbor(b, neighbor))
+                return false;
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Are the 2 cells neighbors
+     * @param a The index of the first cell
+     * @param b The index of the second cell
+     * @return true if so, false otherwise
+     */
+    private boolean isNeighbor(final int a, final int b)
+    {
+        if (a == b)
+            return false;
+        
+        return (Math.abs((a % columns) - (b % columns)) <= 1 && Math.abs((a / columns) - (b / columns)) <= 1);
+    }
+    
+    /**
+     * Use the total number of mines.<br>
+     * If all of the mines are flagged every unknown cell is safe, if the unknown cells equal the missing mines they are all mines.
+     * @return true if a cell was revealed or flagged, false otherwise
+     */
+    private boolean applyRemaining()
+    {
+        final int missing = mineCount - flagged;
+        final int unknown = size - revealed - flagged;
+        
+        if (unknown == 0 || (missing != 0 && missing != unknown))
+            return false;
+        
+        for (int index = 0; index < size; index++)
+        {
+            if (missing == 0)
+            {
+                reveal(index);
+            }
+            else
+            {
+                flag(index);
+            }
+        }
+        
+        return true;
+    }
+}
\ No newline at end of file
@@ -1,12 +1,8 @@
 package com.gamesbykevin.minesweeper.board.tile;
 
 import com.gamesbykevin.framework.base.Sprite;
-import com.gamesbykevin.framework.base.Animation;
 import com.gamesbykevin.framework.resources.Disposable;
 
-import java.awt.Graphics;
-import java.awt.Image;
-
 public abstract class Tile extends Sprite implements Disposable
 {
     //is the tile a mine
@@ -15,6 +11,17 @@ public abstract class Tile extends Sprite implements Disposable
     //has the user already selected this tile whether it be safe or a mine
     private boolean complete;
     
+    //the ordinal of the current state of the tile, how each state looks is shared by every tile
+    private byte state = (byte)State.Blank.ordinal();
+    
+    //cache the states so we don't create a new array every time
+    private static final State[] STATES = State.values();
+    
+    //the ordinals of the states that are checked most often
+    private static final byte BLANK_PRESS = (byte)State.BlankPress.ordinal();
+    private static final byte FLAG = (byte)State.Flag.ordinal();
+    private static final byte ONE = (byte)State.One.ordinal();
+    
     /**
      * All of the different states for the tile
      */
@@ -62,9 +69,6 @@ public abstract class Tile extends Sprite implements Disposable
     {
         //call to parent constructor
         super();
-        
-        //create sprite sheet for our animations
-        super.createSpriteSheet();
     }
     
     @Override
@@ -73,6 +77,17 @@ public abstract class Tile extends Sprite implements Disposable
         super.dispose();
     }
     
+    /**
+     * Return the tile to how it was created so it can be used for a new board.<br>
+     * The column, row and location of the tile are kept.
+     */
+    public void reset()
+    {
+        this.mine = false;
+        this.complete = false;
+        this.state = (byte)State.Blank.ordinal();
+    }
+    
     /**
      * Set the tile if it is a mine
      * @param mine 
@@ -99,42 +114,23 @@ public abstract class Tile extends Sprite implements Disposable
         this.complete = true;
     }
     
+    /**
+     * Mark the tile as visited or not visited
+     * @param complete true if the tile can no longer be selected, false otherwise
+     */
+    public void setCompleted(final boolean complete)
+    {
+        this.complete = complete;
+    }
+    
     /**
      * Check the state of the tile to determine the number count of neighboring mines
      * @return total number of neighbors that are mines
      */
     public int getNumberCount()
     {
-        switch(getState())
-        {
-            case One:
-                return 1;
-                
-            case Two:
-                return 2;
-                
-            case Three:
-                return 3;
-                
-            case Four:
-                return 4;
-                
-            case Five:
-                return 5;
-                
-            case Six:
-                return 6;
-                
-            case Seven:
-                return 7;
-                
-            case Eight:
-                return 8;
-                
-            //anything else we return 0
-            default:
-                return 0;
-        }
+        //the number states are in order at the end so the count is the distance from the first
+        return (state >= ONE) ? (state - ONE) + 1 : 0;
     }
     
     /**
@@ -144,50 +140,14 @@ public abstract class Tile extends Sprite implements Disposable
      */
     public void setCompleted(final int count) throws Exception
     {
+        if (count < 0 || count > 8)
+            throw new Exception("Unknown result found.");
+        
         //Mark the tile as visited so it can no longer be selected.
         setCompleted();
         
-        switch(count)
-        {
-            case 0:
-                setState(Tile.State.BlankPress);
-                break;
-
-            case 1:
-                setState(Tile.State.One);
-                break;
-
-            case 2:
-                setState(Tile.State.Two);
-                break;
-
-            case 3:
-                setState(Tile.State.Three);
-                break;
-
-            case 4:
-                setState(Tile.State.Four);
-                break;
-
-            case 5:
-                setState(Tile.State.Five);
-                break;
-
-            case 6:
-                setState(Tile.State.Six);
-                break;
-
-            case 7:
-                setState(Tile.State.Seven);
-                break;
-
-            case 8:
-                setState(Tile.State.Eight);
-                break;
-
-            default:
-                throw new Exception("Unknown result found.");
-        }
+        //an open tile has no number
+        this.state = (count == 0) ? BLANK_PRESS : (byte)(ONE + count - 1);
     }
     
     /**
@@ -201,7 +161,7 @@ public abstract class Tile extends Sprite implements Disposable
     
     public boolean isFlagged()
     {
-        return (getState() == State.Flag);
+        return (state == FLAG);
     }
     
     public void setSize(final int width, final int height)
@@ -212,21 +172,29 @@ public abstract class Tile extends Sprite implements Disposable
     
     public void setState(final State state)
     {
-        super.getSpriteSheet().setCurrent(state);
+        this.state = (byte)state.ordinal();
     }
     
     public State getState()
     {
-        return (State)super.getSpriteSheet().getCurrent();
+        return STATES[state];
     }
     
-    protected void addAnimation(final Animation animation, final Object key)
+    /**
+     * Set the state of the tile from its ordinal
+     * @param state The state ordinal
+     */
+    public void setStateOrdinal(final int state)
     {
-        super.getSpriteSheet().add(animation, key);
+        this.state = (byte)state;
     }
     
-    public void render(final Graphics graphics, final Image image)
+    /**
+     * Get the ordinal of the state of the tile, this is what the tile stores so no lookup is needed
+     * @return The state ordinal
+     */
+    public int getStateOrdinal()
     {
-        super.draw(graphics, image);
+        return this.state;
     }
 }
\ No newline at end of file
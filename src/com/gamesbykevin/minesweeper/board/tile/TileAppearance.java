@@ -0,0 +1,84 @@
+package com.gamesbykevin.minesweeper.board.tile;
+
+/**
+ * How each tile state looks on the sprite sheet.<br>
+ * Only TileAtlas uses this table to slice the sprite sheet, a tile only has to know its state.
+ * @author GOD
+ */
+final class TileAppearance
+{
+    //the appearance of each state, indexed by the state ordinal
+    private static final TileAppearance[] APPEARANCES = new TileAppearance[Tile.State.values().length];
+    
+    static
+    {
+        add(Tile.State.Blank,          2, 53);
+        add(Tile.State.BlankPress,     19, 53);
+        add(Tile.State.Flag,           36, 53);
+        add(Tile.State.Question,       53, 53);
+        add(Tile.State.QuestionPress,  70, 53);
+        add(Tile.State.MineReveal,     87, 53);
+        add(Tile.State.MineSelection,  104, 53);
+        add(Tile.State.MineFlag,       121, 53);
+        add(Tile.State.One,            2, 70);
+        add(Tile.State.Two,            19, 70);
+        add(Tile.State.Three,          36, 70);
+        add(Tile.State.Four,           53, 70);
+        add(Tile.State.Five,           70, 70);
+        add(Tile.State.Six,            87, 70);
+        add(Tile.State.Seven,          104, 70);
+        add(Tile.State.Eight,          121, 70);
+    }
+    
+    //the location of the state on the sprite sheet
+    private final int x, y, width, height;
+    
+    private TileAppearance(final int x, final int y, final int width, final int height)
+    {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+    }
+    
+    /**
+     * Add the appearance of a state to the table
+     * @param state The state of the tile
+     * @param x x-coordinate on the sprite sheet
+     * @param y y-coordinate on the sprite sheet
+     */
+    private static void add(final Tile.State state, final int x, final int y)
+    {
+        APPEARANCES[state.ordinal()] = new TileAppearance(x, y, Original.SPRITE_WIDTH, Original.SPRITE_HEIGHT);
+    }
+    
+    /**
+     * Get the appearance of the specified state
+     * @param state The state of the tile
+     * @return TileAppearance
+     */
+    static TileAppearance get(final Tile.State state)
+    {
+        return APPEARANCES[state.ordinal()];
+    }
+    
+    int getX()
+    {
+        return this.x;
+    }
+    
+    int getY()
+    {
+        return this.y;
+    }
+    
+    int getWidth()
+    {
+        return this.width;
+    }
+    
+    int getHeight()
+    {
+        return this.height;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.gamesbykevin.minesweeper.board.tile;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+/**
+ * The tile images sliced from the sprite sheet once, indexed by the state ordinal.<br>
+ * Each slice is an image compatible with the display so drawing a tile is a single blit.<br>
+ * The atlas never changes once created so it is shared by every board and thread.
+ * @author GOD
+ */
+public final class TileAtlas
+{
+    //the image of each state, indexed by the state ordinal
+    private final Image[] images;
+    
+    //the most recently created atlas and the sprite sheet it was sliced from
+    private static TileAtlas current;
+    private static Image currentSheet;
+    
+    /**
+     * Slice the tile images from the sprite sheet
+     * @param sheet The sprite sheet containing the tiles
+     */
+    private TileAtlas(final Image sheet)
+    {
+        this.images = new Image[Tile.State.values().length];
+        
+        for (Tile.State state : Tile.State.values())
+        {
+            final TileAppearance source = TileAppearance.get(state);
+            
+            final BufferedImage image = createImage(source.getWidth(), source.getHeight());
+            
+            final Graphics2D graphics = image.createGraphics();
+            graphics.drawImage(sheet, 0, 0, source.getWidth(), source.getHeight(), source.getX(), source.getY(), source.getX() + source.getWidth(), source.getY() + source.getHeight(), null);
+            graphics.dispose();
+            
+            images[state.ordinal()] = image;
+        }
+    }
+    
+    /**
+     * Create an image that is compatible with the display if there is one
+     * @param width
+     * @param height
+     * @return BufferedImage
+     */
+    private static BufferedImage createImage(final int width, final int height)
+    {
+        if (!GraphicsEnvironment.isHeadless())
+        {
+            final GraphicsConfiguration configuration = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+            
+            return configuration.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        }
+        
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+    
+    /**
+     * Get the atlas for the specified sprite sheet, the atlas is only created once for each sheet
+     * @param sheet The sprite sheet containing the tiles
+     * @return TileAtlas
+     */
+    public static synchronized TileAtlas get(final Image sheet)
+    {
+        if (current == null || sheet != currentSheet)
+        {
+            current = new TileAtlas(sheet);
+            currentSheet = sheet;
+        }
+        
+        return current;
+    }
+    
+    /**
+     * Draw a tile
+     * @param graphics Graphics object used for drawing
+     * @param state The state ordinal of the tile
+     * @param x x-coordinate
+     * @param y y-coordinate
+     */
+    public void render(final Graphics graphics, final int state, final int x, final int y)
+    {
+        graphics.drawImage(images[state], x, y, null);
+    }
+}
\ No newline at end of file
@@ -5,20 +5,25 @@ import com.gamesbykevin.minesweeper.resources.Resources;
 import com.gamesbykevin.minesweeper.resources.MenuImage;
 import com.gamesbykevin.minesweeper.main.Main;
 import com.gamesbykevin.minesweeper.manager.Manager;
+import com.gamesbykevin.minesweeper.metrics.Metrics;
+import com.gamesbykevin.minesweeper.metrics.StartupProfile;
 import com.gamesbykevin.minesweeper.menu.CustomMenu;
+import com.gamesbykevin.minesweeper.shared.CachedFont;
+import com.gamesbykevin.minesweeper.shared.Shared;
 
 import com.gamesbykevin.framework.input.*;
 
 import java.awt.*;
 import java.awt.event.*;
+import java.io.File;
 
 public final class Engine implements KeyListener, MouseMotionListener, MouseListener, IEngine 
 {
     //our Main class has important information in it so we need a reference here
     private Main main;
     
-    //access this menu here
-    private CustomMenu menu;
+    //access this menu here, the menu can't be drawn while it is being updated so we synchronize on it
+    private volatile CustomMenu menu;
     
     //object that contains all image/audio resources in the game
     private Resources resources;
@@ -29,11 +34,30 @@ public final class Engine implements KeyListener, MouseMotionListener, MouseList
     //keyboard object that will be recording key input
     private Keyboard keyboard;
     
+    //input events received by the listeners, applied to the mouse/keyboard on the update thread
+    private final InputQueue input = new InputQueue();
+    
+    //value of the cursor when there is no mouse location
+    private static final long NO_CURSOR = Long.MIN_VALUE;
+    
+    //the cursor published by the update thread for the render thread, the x-coordinate, y-coordinate and if dragged packed in one value
+    private volatile long cursor = NO_CURSOR;
+    
     //original font
     private Font font;
     
-    //object containing all of the game elements
-    private Manager manager;
+    //the game/menu fonts are derived once instead of every frame
+    private final CachedFont gameFont = new CachedFont(18f);
+    private final CachedFont menuFont = new CachedFont(18f);
+    
+    //object containing all of the game elements, this is replaced by the update thread and drawn by the render thread
+    private volatile Manager manager;
+    
+    //the game elements can't be drawn while they are being replaced
+    private final Object lock = new Object();
+    
+    //where the startup time is added when the menu is first drawn
+    private static final File STARTUP_FILE = new File(Shared.DATA_DIRECTORY, "startup.csv");
     
     /**
      * The Engine that contains the game/menu objects
@@ -46,7 +70,12 @@ public final class Engine implements KeyListener, MouseMotionListener, MouseList
         this.main = main;
         this.mouse = new Mouse();
         this.keyboard = new Keyboard();
+        
+        StartupProfile.mark(StartupProfile.Mark.ResourcesStart);
+        
         this.resources = new Resources();
+        
+        StartupProfile.mark(StartupProfile.Mark.ResourcesCreated);
     }
     
     
@@ -86,6 +115,9 @@ public final class Engine implements KeyListener, MouseMotionListener, MouseList
     {
         try
         {
+            //apply every input event received since the last update
+            updateInput();
+            
             //if resources are still loading
             if (resources.isLoading())
             {
@@ -93,7 +125,13 @@ public final class Engine implements KeyListener, MouseMotionListener, MouseList
 
                 //resources are now loaded so create the menu
                 if (!resources.isLoading())
+                {
+                    StartupProfile.mark(StartupProfile.Mark.AssetsLoaded);
+                    
                     menu = new CustomMenu(this);
+                    
+                    StartupProfile.mark(StartupProfile.Mark.MenuCreated);
+                }
             }
             else
             {
@@ -106,14 +144,30 @@ public final class Engine implements KeyListener, MouseMotionListener, MouseList
                 }
 
                 //update the menu
-                menu.update(this);
+                synchronized (menu)
+                {
+                    menu.update(this);
+                }
+                
+                //show/hide the metrics overlay
+                if (keyboard.hasKeyPressed(KeyEvent.VK_F3))
+                {
+                    keyboard.reset();
+                    Metrics.toggleOverlay();
+                }
 
                 //if the menu is finished and the window has focus
                 if (menu.hasFinished() && menu.hasFocus())
                 {
                     //NOTE: MAIN GAME LOGIC HERE
                     if (manager != null)
+                    {
+                        final long start = System.nanoTime();
+                        
                         manager.update(this);
+                        
+                        Metrics.record(Metrics.Phase.ManagerUpdate, start);
+                    }
                 }
                 
                 //if the mouse is released reset all events
@@ -125,6 +179,83 @@ public final class Engine implements KeyListener, MouseMotionListener, MouseList
         {
             e.printStackTrace();
         }
+        
+        //the render thread only reads the cursor from here
+        publishCursor();
+    }
+    
+    /**
+     * Publish the location of the mouse and if it is dragged so the render thread never reads the mouse
+     */
+    private void publishCursor()
+    {
+        final Point location = mouse.getLocation();
+        
+        if (location == null)
+        {
+            cursor = NO_CURSOR;
+        }
+        else
+        {
+            //the x-coordinate is in the high bits, the y-coordinate and the drag flag are in the low bits
+            cursor = ((long)location.x << 32) | ((((long)location.y << 1) | (mouse.isMouseDragged() ? 1 : 0)) & 0xFFFFFFFFL);
+        }
+    }
+    
+    /**
+     * Take the input events received since the last update and apply them to the mouse/keyboard in order
+     */
+    private void updateInput()
+    {
+        final int count = input.drain();
+        
+        for (int index = 0; index < count; index++)
+        {
+            final InputEvent event = input.getEvent(index);
+            
+            switch (event.getID())
+            {
+                case KeyEvent.KEY_PRESSED:
+                    keyboard.addKeyPressed(((KeyEvent)event).getKeyCode());
+                    break;
+                    
+                case KeyEvent.KEY_RELEASED:
+                    keyboard.addKeyReleased(((KeyEvent)event).getKeyCode());
+                    break;
+                    
+                case KeyEvent.KEY_TYPED:
+                    keyboard.addKeyTyped(((KeyEvent)event).getKeyChar());
+                    break;
+                    
+                case MouseEvent.MOUSE_CLICKED:
+                    mouse.setMouseClicked((MouseEvent)event);
+                    break;
+                    
+                case MouseEvent.MOUSE_PRESSED:
+                    mouse.setMousePressed((MouseEvent)event);
+                    break;
+                    
+                case MouseEvent.MOUSE_RELEASED:
+                    mouse.setMouseReleased((MouseEvent)event);
+                    break;
+                    
+                case MouseEvent.MOUSE_ENTERED:
+                    mouse.setMouseEntered(((MouseEvent)event).getPoint());
+                    break;
+                    
+                case MouseEvent.MOUSE_EXITED:
+                    mouse.setMouseExited(((MouseEvent)event).getPoint());
+                    break;
+                    
+                case MouseEvent.MOUSE_MOVED:
+                    mouse.setMouseMoved(((MouseEvent)event).getPoint());
+                    break;
+                    
+                case MouseEvent.MOUSE_DRAGGED:
+                    mouse.setMouseDragged(((MouseEvent)event).getPoint());
+                    break;
+            }
+        }
     }
     
     public Main getMain()
@@ -147,21 +278,26 @@ public final class Engine implements KeyListener, MouseMotionListener, MouseList
         getKeyboard().reset();
         getMouse().reset();
         
-        //if the manager already exists release resources
-        if (manager != null)
-            manager.dispose();
-        
-        manager = new Manager(this);
+        //make sure the game elements aren't being drawn while they are replaced
+        synchronized (lock)
+        {
+            //if the manager already exists release resources
+            if (manager != null)
+                manager.dispose();
+            
+            manager = new Manager(this);
+        }
     }
     
     /**
-     * Draw our game to the Graphics object whether resources are still loading or the game is intact
+     * Draw our game to the Graphics object whether resources are still loading or the game is intact.<br>
+     * This is called from the render thread.
      * @param graphics
-     * @return Graphics
+     * @param interpolation How far we are between the previous and next update, from 0.0 to 1.0
      * @throws Exception 
      */
     @Override
-    public void render(Graphics graphics) throws Exception
+    public void render(Graphics graphics, float interpolation) throws Exception
     {
         //store the original font if we haven't already
         if (font == null)
@@ -173,29 +309,40 @@ public final class Engine implements KeyListener, MouseMotionListener, MouseList
             //draw loading screen
             resources.render(graphics, main.getScreen());
         }
-        else
+        else if (menu != null)
         {
-            //draw application elements
-            renderElements((Graphics2D)graphics);
+            synchronized (lock)
+            {
+                //draw application elements
+                renderElements((Graphics2D)graphics, interpolation);
+            }
+            
+            synchronized (menu)
+            {
+                //draw menu on top of the game if visible
+                renderMenu(graphics);
+            }
             
-            //draw menu on top of the game if visible
-            renderMenu(graphics);
+            //the first time the menu is drawn the game has started
+            if (!StartupProfile.hasFinished())
+                StartupProfile.finish(STARTUP_FILE);
         }
     }
     
     /**
      * Draw our application elements
      * @param graphics2d Graphics2D object that game elements will be written to
+     * @param interpolation How far we are between the previous and next update, from 0.0 to 1.0
      * @throws Exception 
      */
-    private void renderElements(Graphics2D graphics) throws Exception
+    private void renderElements(Graphics2D graphics, float interpolation) throws Exception
     {
         //NOTE: DRAW MAIN GAME HERE
         if (manager != null)
         {
-            graphics.setFont(resources.getFont(AllFonts.Keys.Game).deriveFont(18f));
+            graphics.setFont(gameFont.get(resources.getFont(AllFonts.Keys.Game)));
             
-            manager.render(graphics);
+            manager.render(graphics, interpolation);
         }
     }
     
@@ -208,7 +355,7 @@ public final class Engine implements KeyListener, MouseMotionListener, MouseList
     private void renderMenu(Graphics graphics) throws Exception
     {
         //set the appropriate game font
-        graphics.setFont(resources.getFont(AllFonts.Keys.Menu).deriveFont(18f));
+        graphics.setFont(menuFont.get(resources.getFont(AllFonts.Keys.Menu)));
         
         //if menu is setup draw menu
         if (menu.isSetup())
@@ -217,17 +364,23 @@ public final class Engine implements KeyListener, MouseMotionListener, MouseList
         //if menu is finished and we don't want to hide mouse cursor then draw it, or if the menu is not finished show mouse
         if (menu.hasFinished() && !Main.HIDE_MOUSE || !menu.hasFinished())
         {
-            if (mouse.getLocation() != null)
+            //read the cursor once so the location and drag flag belong to the same update
+            final long current = cursor;
+            
+            if (current != NO_CURSOR)
             {
+                final int x = (int)(current >> 32);
+                final int y = ((int)current) >> 1;
+                
                 if (resources.getMenuImage(MenuImage.Keys.Mouse) != null && resources.getMenuImage(MenuImage.Keys.MouseDrag) != null)
                 {
-                    if (mouse.isMouseDragged())
+                    if ((current & 1) != 0)
                     {
-                        graphics.drawImage(resources.getMenuImage(MenuImage.Keys.MouseDrag), mouse.getLocation().x, mouse.getLocation().y, null);
+                        graphics.drawImage(resources.getMenuImage(MenuImage.Keys.MouseDrag), x, y, null);
                     }
                     else
                     {
-                        graphics.drawImage(resources.getMenuImage(MenuImage.Keys.Mouse), mouse.getLocation().x, mouse.getLocation().y, null);
+                        graphics.drawImage(resources.getMenuImage(MenuImage.Keys.Mouse), x, y, null);
                     }
                 }
             }
@@ -256,61 +409,70 @@ public final class Engine implements KeyListener, MouseMotionListener, MouseList
     @Override
     public void keyReleased(KeyEvent e)
     {
-        keyboard.addKeyReleased(e.getKeyCode());
+        input.offer(e);
     }
     
     @Override
     public void keyPressed(KeyEvent e)
     {
-        keyboard.addKeyPressed(e.getKeyCode());
+        input.offer(e);
     }
     
     @Override
     public void keyTyped(KeyEvent e)
     {
-        keyboard.addKeyTyped(e.getKeyChar());
+        input.offer(e);
     }
     
     @Override
     public void mouseClicked(MouseEvent e)
     {
-        mouse.setMouseClicked(e);
+        input.offer(e);
     }
     
     @Override
     public void mousePressed(MouseEvent e)
     {
-        mouse.setMousePressed(e);
+        input.offer(e);
     }
     
     @Override
     public void mouseReleased(MouseEvent e)
     {
-        mouse.setMouseReleased(e);
+        input.offer(e);
     }
     
     @Override
     public void mouseEntered(MouseEvent e)
     {
-        mouse.setMouseEntered(e.getPoint());
+        input.offer(e);
     }
     
     @Override
     public void mouseExited(MouseEvent e)
     {
-        mouse.setMouseExited(e.getPoint());
+        input.offer(e);
     }
     
     @Override
     public void mouseMoved(MouseEvent e)
     {
-        mouse.setMouseMoved(e.getPoint());
+        input.offer(e);
     }
     
     @Override
     public void mouseDragged(MouseEvent e)
     {
-        mouse.setMouseDragged(e.getPoint());
+        input.offer(e);
+    }
+    
+    /**
+     * Get the input events drained for the current update
+     * @return The queue of input events
+     */
+    public InputQueue getInput()
+    {
+        return this.input;
     }
     
     public Mouse getMouse()
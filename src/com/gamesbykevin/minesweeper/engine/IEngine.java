@@ -18,10 +18,10 @@ public interface IEngine extends Disposable
     /**
      * Draw the engine which contains all of the game elements
      * @param graphics Graphics object that game will be written to
-     * @return Graphics object containing game/menu elements
+     * @param interpolation How far we are between the previous and next update, from 0.0 to 1.0
      * @throws Exception 
      */
-    public void render(Graphics graphics) throws Exception;
+    public void render(Graphics graphics, float interpolation) throws Exception;
     
     /**
      * The Main class where the application is initialized
@@ -0,0 +1,119 @@
+package com.gamesbykevin.minesweeper.engine;
+
+import java.awt.event.InputEvent;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free queue of input events between the event dispatch thread and the update thread.<br>
+ * The event dispatch thread is the only producer and the update thread is the only consumer.<br>
+ * Once per update the consumer drains the queue, every event received since the previous update can then be read in order.
+ * @author GOD
+ */
+public final class InputQueue
+{
+    //the number of events the queue can hold, must be a power of 2
+    private static final int CAPACITY = 256;
+    
+    //mask to get the slot from a sequence number
+    private static final int MASK = CAPACITY - 1;
+    
+    //the events and the time they were received
+    private final InputEvent[] events = new InputEvent[CAPACITY];
+    private final long[] times = new long[CAPACITY];
+    
+    //sequence of the next event the producer will write
+    private final AtomicLong head = new AtomicLong();
+    
+    //sequence of the first event the consumer hasn't released
+    private final AtomicLong tail = new AtomicLong();
+    
+    //the range of events drained by the consumer, only used by the consumer
+    private long start = 0, end = 0;
+    
+    //the number of events that were lost because the queue was full
+    private volatile int dropped = 0;
+    
+    /**
+     * Add an event to the queue.<br>
+     * Should only be called by the producer thread, if the queue is full the event is dropped so the producer never waits.
+     * @param event The input event
+     */
+    public void offer(final InputEvent event)
+    {
+        final long sequence = head.get();
+        
+        //the consumer hasn't released enough events
+        if (sequence - tail.get() >= CAPACITY)
+        {
+            dropped++;
+            return;
+        }
+        
+        final int slot = (int)(sequence & MASK);
+        
+        events[slot] = event;
+        times[slot] = System.nanoTime();
+        
+        //make the event visible to the consumer
+        head.lazySet(sequence + 1);
+    }
+    
+    /**
+     * Release the previously drained events and take every event that has been added since.<br>
+     * Should only be called by the consumer thread.
+     * @return The number of events drained
+     */
+    public int drain()
+    {
+        //the slots of the previous events can now be written again
+        for (long sequence = start; sequence < end; sequence++)
+        {
+            events[(int)(sequence & MASK)] = null;
+        }
+        
+        tail.lazySet(end);
+        
+        start = end;
+        end = head.get();
+        
+        return getCount();
+    }
+    
+    /**
+     * Get the number of events drained by the last call to drain()
+     * @return The number of events
+     */
+    public int getCount()
+    {
+        return (int)(end - start);
+    }
+    
+    /**
+     * Get a drained event
+     * @param index The index of the event, from 0 to getCount() - 1
+     * @return The input event
+     */
+    public InputEvent getEvent(final int index)
+    {
+        return events[(int)((start + index) & MASK)];
+    }
+    
+    /**
+     * Get the time a drained event was received
+     * @param index The index of the event, from 0 to getCount() - 1
+     * @return Time in nanoseconds
+     */
+    public long getTime(final int index)
+    {
+        return times[(int)((start + index) & MASK)];
+    }
+    
+    /**
+     * Get the number of events that were lost because the queue was full
+     * @return The number of events dropped
+     */
+    public int getDropped()
+    {
+        return this.dropped;
+    }
+}
\ No newline at end of file
@@ -1,39 +1,47 @@
 package com.gamesbykevin.minesweeper.main;
 
 import java.awt.*;
+import java.awt.image.VolatileImage;
 import javax.swing.*;
 
 import com.gamesbykevin.minesweeper.engine.Engine;
+import com.gamesbykevin.minesweeper.metrics.Events;
+import com.gamesbykevin.minesweeper.metrics.Metrics;
 import com.gamesbykevin.minesweeper.shared.Shared;
 
+import java.io.File;
+
 public final class Main extends Thread
 {
-    //image where all game/menu elements will be written to
-    private Image bufferedImage;
+    //accelerated image where all game/menu elements will be written to
+    private VolatileImage bufferedImage;
     
-    //Graphics object used to draw buffered image
+    //Graphics object used to draw buffered image, this is kept until the image is restored or replaced
     private Graphics bufferedImageGraphics;
     
+    //how many times we will try to draw a frame when the accelerated image keeps losing its contents
+    private static final int MAX_RENDER_ATTEMPTS = 3;
+    
     //our dimensions for the original screen window
     private Rectangle originalSizeWindow;
     
     //our dimensions for the full screen window
     private Rectangle fullSizeWindow;
     
-    //our dimensions for keeping track of the size of the current window
-    private Rectangle currentWindow;
+    //our dimensions for keeping track of the size of the current window, this is changed by the update thread
+    private volatile Rectangle currentWindow;
     
-    //our main game engine
-    private Engine engine;
+    //our main game engine, created on one thread and used by the update and render thread
+    private volatile Engine engine;
     
     //do we hide mouse when the menu is not visible and actual gameplay started
     public static boolean HIDE_MOUSE = true;
     
-    //how many nanoseconds bewteen each engine update
-    private double nanoSecondsPerUpdate;
+    //determines when each engine update and frame render is due
+    private final Scheduler scheduler;
     
-    //how many nanoseconds between each frame render
-    private double nanoSecondsPerFrame;
+    //the thread that draws the game so it doesn't hold up the updates
+    private final Thread renderThread;
     
     //frames per second
     private int frames = 0;
@@ -42,13 +50,13 @@ public final class Main extends Thread
     private int updates = 0;
     
     //frames per second current count
-    private int currentFPS  = 0;
+    private volatile int currentFPS  = 0;
     
     //updates per second current count
-    private int currentUPS = 0;
+    private volatile int currentUPS = 0;
     
     //how many nanoseconds are there in one second
-    private static final double NANO_SECONDS_PER_SECOND = 1000000000.0;
+    private static final long NANO_SECONDS_PER_SECOND = 1000000000L;
     
     //reference to our applet
     private JApplet applet;
@@ -57,7 +65,16 @@ public final class Main extends Thread
     private JPanel panel;
     
     //cache this graphics object so we aren't constantly creating it
-    private Graphics graphics;
+    private volatile Graphics graphics;
+    
+    //where the metrics are written when the application exits
+    private static final File METRICS_FILE = new File(Shared.DATA_DIRECTORY, "metrics.csv");
+    
+    //where the recorded events are written when the application exits
+    private static final File EVENTS_FILE = new File(Shared.DATA_DIRECTORY, "events.csv");
+    
+    //writes the metrics when the application exits, null if nothing is written
+    private final Thread metricsHook;
     
     /**
      * Main class that runs the game engine
@@ -71,11 +88,77 @@ public final class Main extends Thread
         originalSizeWindow = new Rectangle(0, 0, Shared.ORIGINAL_WIDTH, Shared.ORIGINAL_HEIGHT);
         fullSizeWindow     = new Rectangle(originalSizeWindow);
 
-        //duration per each engine update in nanoseconds
-        nanoSecondsPerUpdate = NANO_SECONDS_PER_SECOND / ups;
+        //determines the duration of each engine update and frame render
+        scheduler = new Scheduler(ups, fps);
+        
+        //the render loop will run on its own thread
+        renderThread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                runRender();
+            }
+        }, "Render");
         
-        //duration per each frame render in nanoseconds
-        nanoSecondsPerFrame = NANO_SECONDS_PER_SECOND / fps;
+        //don't keep the application alive because of this thread
+        renderThread.setDaemon(true);
+        
+        //the desktop version exits without disposing so write the metrics when the application shuts down, only if asked for
+        if (Metrics.hasDump() || Events.isEnabled())
+        {
+            metricsHook = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    dumpMetrics();
+                }
+            }, "Metrics");
+            
+            Runtime.getRuntime().addShutdownHook(metricsHook);
+        }
+        else
+        {
+            metricsHook = null;
+        }
+    }
+    
+    /**
+     * Write the metrics of each phase to file, and the recorded events if there are any
+     */
+    private void dumpMetrics()
+    {
+        try
+        {
+            if (Metrics.hasDump())
+                Metrics.dump(METRICS_FILE);
+            
+            if (Events.getCount() > 0)
+                Events.dump(EVENTS_FILE);
+        }
+        catch (Exception e)
+        {
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Change the number of engine updates per second
+     * @param ups Engine updates per second
+     */
+    public void setUps(final int ups)
+    {
+        scheduler.setUps(ups);
+    }
+    
+    /**
+     * Change the number of frame renders per second
+     * @param fps Frame renders per second
+     */
+    public void setFps(final int fps)
+    {
+        scheduler.setFps(fps);
     }
     
     /**
@@ -100,67 +183,123 @@ public final class Main extends Thread
         }
     }
     
+    /**
+     * The update loop, the render loop is started on its own thread so a slow frame never delays an update
+     */
     @Override
     public void run()
     {
-        //we need to determine the last run so we can calculate ups/fps
-        long lastRun = System.nanoTime();
-        
-        //this will reset ups/fps count every second
+        //this will reset ups count every second
         long timer = System.nanoTime();
         
-        //this variables will keep track of the time passed
-        double deltaUpdate = 0;
-        double deltaFrame = 0;
+        //the first update and frame are due now
+        scheduler.reset(timer);
+        
+        //start drawing on its own thread
+        renderThread.start();
         
         while(true)
         {
             try
             {
-                //get current system nano time
-                long now = System.nanoTime();
-                
-                //update these variables
-                deltaUpdate += ((now - lastRun) / nanoSecondsPerUpdate);
-                deltaFrame += ((now - lastRun) / nanoSecondsPerFrame);
+                //the number of updates we have run to catch up
+                int count = 0;
                 
-                //set the current time as the last run
-                lastRun = now;
-                
-                while(deltaUpdate >= 1)
+                while (scheduler.hasUpdate(System.nanoTime()))
                 {
+                    //if we have run too many updates at once, stop trying to catch up
+                    if (count >= scheduler.getMaxCatchUp())
+                    {
+                        scheduler.skipUpdates(System.nanoTime());
+                        break;
+                    }
+                    
                     if (engine != null)
                     {
+                        final long start = System.nanoTime();
+                        
                         engine.update(this);
-
                         updates++;
-                        deltaUpdate--;
+                        
+                        Metrics.record(Metrics.Phase.EngineUpdate, start);
                     }
+                    
+                    scheduler.completeUpdate();
+                    count++;
                 }
                 
-                while(deltaFrame >= 1)
+                //if 1 second has passed
+                if (System.nanoTime() - timer > NANO_SECONDS_PER_SECOND)
                 {
-                    renderImage();
-                    drawScreen();
+                    //add 1 second time for next update
+                    timer += NANO_SECONDS_PER_SECOND;
+                    
+                    //store the current ups to be displayed to the user
+                    currentUPS = updates;
+                    
+                    //reset the counter
+                    updates = 0;
+                }
+                
+                //wait until the next update is due
+                scheduler.waitForUpdate();
+            }
+            catch(Exception e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+    
+    /**
+     * The render loop, this runs on the render thread
+     */
+    private void runRender()
+    {
+        //this will reset fps count every second
+        long timer = System.nanoTime();
+        
+        while(true)
+        {
+            try
+            {
+                if (scheduler.hasFrame(System.nanoTime()))
+                {
+                    //measure what drawing the frame allocates
+                    final long allocated = Metrics.getAllocatedBytes();
+                    
+                    int attempts = 0;
+                    
+                    //if the accelerated image lost its contents before it made it to the screen draw the frame again
+                    do
+                    {
+                        renderImage();
+                        drawScreen();
+                        attempts++;
+                    }
+                    while (bufferedImage != null && bufferedImage.contentsLost() && attempts < MAX_RENDER_ATTEMPTS);
+                    
+                    Metrics.recordAllocation(allocated);
                     
                     frames++;
-                    deltaFrame--;
+                    scheduler.completeFrame(System.nanoTime());
                 }
                 
                 //if 1 second has passed
                 if (System.nanoTime() - timer > NANO_SECONDS_PER_SECOND)
                 {
-                    //add 1 second time for next update
+                    //add 1 second time for next frame
                     timer += NANO_SECONDS_PER_SECOND;
                     
-                    //store the current fps/ups to be displayed to the user
-                    currentUPS = updates;
+                    //store the current fps to be displayed to the user
                     currentFPS = frames;
                     
                     //reset the counter
-                    updates = 0;
                     frames = 0;
                 }
+                
+                //wait until the next frame is due
+                scheduler.waitForFrame();
             }
             catch(Exception e)
             {
@@ -202,17 +341,56 @@ public final class Main extends Thread
     }
     
     /**
-     * Create buffered Image
+     * Get the component the game is displayed in
+     * @return The applet or panel
      */
-    private void createBufferedImage()
+    private Component getComponent()
     {
         if (applet != null)
         {
-            bufferedImage = applet.createImage(originalSizeWindow.width, originalSizeWindow.height);
+            return applet;
         }
         else
         {
-            bufferedImage = panel.createImage(originalSizeWindow.width, originalSizeWindow.height);
+            return panel;
+        }
+    }
+    
+    /**
+     * Create buffered Image.<br>
+     * This is a volatile image so it can stay in video memory, it will be null until the component is displayable
+     */
+    private void createBufferedImage()
+    {
+        bufferedImage = getComponent().createVolatileImage(originalSizeWindow.width, originalSizeWindow.height);
+    }
+    
+    /**
+     * Make sure the buffered image is still usable before drawing to it.<br>
+     * The contents of a volatile image can be lost at any time (display change, full screen, etc...)
+     */
+    private void validateBufferedImage()
+    {
+        final int result = bufferedImage.validate(getComponent().getGraphicsConfiguration());
+        
+        //the image no longer works with the display so create a new one
+        if (result == VolatileImage.IMAGE_INCOMPATIBLE)
+        {
+            if (bufferedImageGraphics != null)
+                bufferedImageGraphics.dispose();
+            
+            bufferedImageGraphics = null;
+            
+            bufferedImage.flush();
+            createBufferedImage();
+        }
+        else if (result == VolatileImage.IMAGE_RESTORED)
+        {
+            //the image was restored so get a new graphics object, the whole frame is drawn again anyway
+            if (bufferedImageGraphics != null)
+                bufferedImageGraphics.dispose();
+            
+            bufferedImageGraphics = null;
         }
     }
     
@@ -251,6 +429,15 @@ public final class Main extends Thread
         createGraphicsObject();
     }
     
+    /**
+     * Get the total number of updates that were skipped because the updates fell too far behind
+     * @return The number of updates dropped
+     */
+    public long getDroppedUpdates()
+    {
+        return scheduler.getDroppedUpdates();
+    }
+    
     /**
      * Gets the number of nanoseconds between each update
      * 
@@ -258,7 +445,7 @@ public final class Main extends Thread
      */
     public long getTime()
     {
-        return (long)nanoSecondsPerUpdate;
+        return scheduler.getNanoSecondsPerUpdate();
     }
     
     /**
@@ -271,17 +458,27 @@ public final class Main extends Thread
     {
         if (bufferedImage != null)
         {
+            //make sure the image hasn't been lost
+            validateBufferedImage();
+            
+            if (bufferedImage == null)
+                return;
+            
             if (bufferedImageGraphics == null)
-                bufferedImageGraphics = bufferedImage.getGraphics();
+                bufferedImageGraphics = bufferedImage.createGraphics();
             
             //background by itself will be a black rectangle
             bufferedImageGraphics.setColor(Color.BLACK);
             bufferedImageGraphics.fillRect(0, 0, Shared.ORIGINAL_WIDTH, Shared.ORIGINAL_HEIGHT);
 
-            engine.render(bufferedImageGraphics);
+            engine.render(bufferedImageGraphics, scheduler.getInterpolation(System.nanoTime()));
 
             if (Shared.DEBUG)
                 renderCounter(bufferedImageGraphics);
+            
+            //draw the metrics overlay if visible
+            if (Metrics.hasOverlay())
+                Metrics.render(bufferedImageGraphics);
         }
         else
         {
@@ -314,7 +511,7 @@ public final class Main extends Thread
      */
     private void renderCounter(Graphics graphics)
     {
-        String result = currentUPS + " UPS, " + currentFPS + " FPS";
+        String result = currentUPS + " UPS, " + currentFPS + " FPS, " + scheduler.getDroppedUpdates() + " Dropped";
         int width = graphics.getFontMetrics().stringWidth(result);
         int height = graphics.getFontMetrics().getHeight() + 1;
         Rectangle tmp = new Rectangle(originalSizeWindow.width - width, originalSizeWindow.height - height, width, height);
@@ -357,25 +554,35 @@ public final class Main extends Thread
         if (currentWindow == null)
             setFullScreen();
         
+        //the window may be replaced by the update thread so only read it once
+        final Rectangle window = currentWindow;
+        
         try
         {
-            //the destination will be the size of the window
-            int dx1 = currentWindow.x;
-            int dy1 = currentWindow.y;
-            int dx2 = currentWindow.x + currentWindow.width;
-            int dy2 = currentWindow.y + currentWindow.height;
-
-            //the source will be the entire image
-            int sx1 = 0;
-            int sy1 = 0;
-            int sx2 = bufferedImage.getWidth(null);
-            int sy2 = bufferedImage.getHeight(null);
+            //if the contents were lost the frame will be drawn again
+            if (bufferedImage.contentsLost())
+                return;
             
-            //draw our rendered image at the specified location
-            graphics.drawImage(bufferedImage, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, null);
-
-            //release pixel data
-            bufferedImage.flush();
+            final long start = System.nanoTime();
+            
+            if (window.width == originalSizeWindow.width && window.height == originalSizeWindow.height)
+            {
+                //no scaling needed so we can do a straight copy
+                graphics.drawImage(bufferedImage, window.x, window.y, null);
+            }
+            else
+            {
+                //draw our rendered image scaled to the size of the window
+                graphics.drawImage(bufferedImage, window.x, window.y, window.width, window.height, null);
+            }
+            
+            Metrics.record(Metrics.Phase.ScreenBlit, start);
+            
+            //the frame is now on the screen
+            Metrics.recordPresented();
+            
+            if (Events.isEnabled())
+                Events.commit(Events.Type.ScreenDraw, start, window.width, window.height);
         }
         catch(Exception e)
         {
@@ -388,6 +595,13 @@ public final class Main extends Thread
      */
     public void dispose()
     {
+        //the application isn't exiting so write the metrics now
+        if (metricsHook != null)
+        {
+            Runtime.getRuntime().removeShutdownHook(metricsHook);
+            dumpMetrics();
+        }
+        
         engine.dispose();
         engine = null;
         originalSizeWindow = null;
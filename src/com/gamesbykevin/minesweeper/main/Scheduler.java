@@ -0,0 +1,242 @@
+package com.gamesbykevin.minesweeper.main;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class will keep track of when the next update and frame are due.<br>
+ * In between the thread will park instead of spinning so the game doesn't use a full core.<br>
+ * The update deadline belongs to the update thread and the frame deadline belongs to the render thread.
+ * @author GOD
+ */
+public final class Scheduler
+{
+    //how many nanoseconds are there in one second
+    private static final long NANO_SECONDS_PER_SECOND = 1000000000L;
+    
+    //we will spin instead of park when the deadline is this close (1 millisecond) so we don't oversleep
+    private static final long SPIN_NANOSECONDS = 1000000L;
+    
+    //the maximum number of updates we will run at once to catch up, after that the remaining updates are dropped
+    public static final int DEFAULT_MAX_CATCH_UP = 5;
+    
+    //how many nanoseconds between each update/frame, these may be changed from another thread
+    private volatile long nanoSecondsPerUpdate;
+    private volatile long nanoSecondsPerFrame;
+    
+    //the time the next update is due, this is read by the render thread to interpolate
+    private volatile long nextUpdate;
+    
+    //the time the next frame is due
+    private long nextFrame;
+    
+    //the total number of updates that were skipped because we were too far behind
+    private volatile long dropped = 0;
+    
+    //the maximum number of updates we will run at once to catch up
+    private final int maxCatchUp;
+    
+    /**
+     * Create a new scheduler
+     * @param ups Engine updates per second
+     * @param fps Frame renders per second
+     */
+    public Scheduler(final int ups, final int fps)
+    {
+        this(ups, fps, DEFAULT_MAX_CATCH_UP);
+    }
+    
+    /**
+     * Create a new scheduler
+     * @param ups Engine updates per second
+     * @param fps Frame renders per second
+     * @param maxCatchUp The maximum number of updates to run at once when we are behind
+     */
+    public Scheduler(final int ups, final int fps, final int maxCatchUp)
+    {
+        setUps(ups);
+        setFps(fps);
+        
+        this.maxCatchUp = maxCatchUp;
+        
+        reset(System.nanoTime());
+    }
+    
+    /**
+     * Set the number of updates per second
+     * @param ups Engine updates per second
+     */
+    public final void setUps(final int ups)
+    {
+        this.nanoSecondsPerUpdate = NANO_SECONDS_PER_SECOND / ups;
+    }
+    
+    /**
+     * Set the number of frames per second
+     * @param fps Frame renders per second
+     */
+    public final void setFps(final int fps)
+    {
+        this.nanoSecondsPerFrame = NANO_SECONDS_PER_SECOND / fps;
+    }
+    
+    /**
+     * Get the duration of each update
+     * @return Nanoseconds between each update
+     */
+    public long getNanoSecondsPerUpdate()
+    {
+        return this.nanoSecondsPerUpdate;
+    }
+    
+    /**
+     * Get the duration of each frame
+     * @return Nanoseconds between each frame
+     */
+    public long getNanoSecondsPerFrame()
+    {
+        return this.nanoSecondsPerFrame;
+    }
+    
+    public int getMaxCatchUp()
+    {
+        return this.maxCatchUp;
+    }
+    
+    /**
+     * Make the next update and frame due at the specified time
+     * @param now Current time in nanoseconds
+     */
+    public final void reset(final long now)
+    {
+        this.nextUpdate = now;
+        this.nextFrame = now;
+    }
+    
+    /**
+     * Is an update due
+     * @param now Current time in nanoseconds
+     * @return true if the update deadline has passed, false otherwise
+     */
+    public boolean hasUpdate(final long now)
+    {
+        return (now - nextUpdate >= 0);
+    }
+    
+    /**
+     * Mark the update as completed so the next one is scheduled
+     */
+    public void completeUpdate()
+    {
+        this.nextUpdate += nanoSecondsPerUpdate;
+    }
+    
+    /**
+     * If we are still behind after catching up, don't try to make up the remaining updates.<br>
+     * The skipped updates are added to the dropped count.
+     * @param now Current time in nanoseconds
+     */
+    public void skipUpdates(final long now)
+    {
+        if (hasUpdate(now))
+        {
+            //the number of updates we are behind
+            this.dropped += ((now - nextUpdate) / nanoSecondsPerUpdate) + 1;
+            
+            this.nextUpdate = now + nanoSecondsPerUpdate;
+        }
+    }
+    
+    /**
+     * Get the total number of updates that have been skipped
+     * @return The number of updates dropped
+     */
+    public long getDroppedUpdates()
+    {
+        return this.dropped;
+    }
+    
+    /**
+     * Get how far we are in between the previous update and the next update.<br>
+     * This is used to draw movement smoothly when there are fewer updates than frames.
+     * @param now Current time in nanoseconds
+     * @return 0.0 when an update just happened up to 1.0 when the next update is due
+     */
+    public float getInterpolation(final long now)
+    {
+        final long perUpdate = nanoSecondsPerUpdate;
+        
+        final float interpolation = 1.0f - ((float)(nextUpdate - now) / perUpdate);
+        
+        if (interpolation < 0.0f)
+            return 0.0f;
+        if (interpolation > 1.0f)
+            return 1.0f;
+        
+        return interpolation;
+    }
+    
+    /**
+     * Is a frame due
+     * @param now Current time in nanoseconds
+     * @return true if the frame deadline has passed, false otherwise
+     */
+    public boolean hasFrame(final long now)
+    {
+        return (now - nextFrame >= 0);
+    }
+    
+    /**
+     * Mark the frame as completed so the next one is scheduled.<br>
+     * Frames that were missed are skipped since there is no reason to draw the same state twice.
+     * @param now Current time in nanoseconds
+     */
+    public void completeFrame(final long now)
+    {
+        this.nextFrame += nanoSecondsPerFrame;
+        
+        if (now - nextFrame >= 0)
+            this.nextFrame = now + nanoSecondsPerFrame;
+    }
+    
+    /**
+     * Park the update thread until the next update is due
+     */
+    public void waitForUpdate()
+    {
+        waitUntil(nextUpdate);
+    }
+    
+    /**
+     * Park the render thread until the next frame is due
+     */
+    public void waitForFrame()
+    {
+        waitUntil(nextFrame);
+    }
+    
+    /**
+     * Park the current thread until the deadline.<br>
+     * We park until we are close to the deadline, then spin the remaining time for precision.
+     * @param deadline The time in nanoseconds to wait until
+     */
+    private static void waitUntil(final long deadline)
+    {
+        while (true)
+        {
+            final long remaining = deadline - System.nanoTime();
+            
+            //the deadline has been reached
+            if (remaining <= 0)
+                return;
+            
+            if (remaining > SPIN_NANOSECONDS)
+            {
+                LockSupport.parkNanos(remaining - SPIN_NANOSECONDS);
+            }
+            else
+            {
+                Thread.yield();
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -2,18 +2,23 @@ package com.gamesbykevin.minesweeper.manager;
 
 import com.gamesbykevin.framework.menu.Menu;
 
+import com.gamesbykevin.minesweeper.board.BoardFactory;
 import com.gamesbykevin.minesweeper.engine.Engine;
 import com.gamesbykevin.minesweeper.menu.CustomMenu.*;
 import com.gamesbykevin.minesweeper.menu.option.*;
+import com.gamesbykevin.minesweeper.replay.Replay;
 import com.gamesbykevin.minesweeper.resources.*;
 import com.gamesbykevin.minesweeper.resources.GameImage.Keys;
 import com.gamesbykevin.minesweeper.shared.IElement;
+import com.gamesbykevin.minesweeper.shared.Shared;
 
 import com.gamesbykevin.minesweeper.player.*;
 
 import java.awt.Graphics;
 import java.awt.Image;
 import java.awt.Rectangle;
+import java.awt.event.KeyEvent;
+import java.io.File;
 import java.util.Random;
 
 /**
@@ -55,6 +60,24 @@ public final class Manager implements IElement
     //the number of wins required to win the game
     private final int limit;
     
+    //the index of each player in the replay
+    private static final int HUMAN_INDEX = 0;
+    private static final int AGENT_INDEX = 1;
+    
+    //the recording of this game, null if we aren't recording
+    private Replay replay;
+    
+    //where the game in progress is saved
+    private static final File SAVE_FILE = new File(Shared.DATA_DIRECTORY, "minesweeper" + Shared.SAVE_EXTENSION);
+    
+    //status messages when saving/restoring a game
+    private static final String SAVE_STATUS_MESSAGE = "Game saved";
+    private static final String RESTORE_STATUS_MESSAGE = "Game restored";
+    
+    //status messages when the game couldn't be saved or restored
+    private static final String SAVE_FAILED_STATUS_MESSAGE = "Game could not be saved";
+    private static final String RESTORE_FAILED_STATUS_MESSAGE = "Game could not be restored";
+    
     //default status messages
     private static final String DEFAULT_MENU_STATUS_MESSAGE = "Hit \"Esc\" for menu";
     private static final String HIT_MINE_DEFAULT_MESSAGE = "Hit mine. Board reset";
@@ -84,32 +107,15 @@ public final class Manager implements IElement
         //get the difficulty selection of the board
         final int boardDifficultyIndex = menu.getOptionSelectionIndex(LayerKey.Options, OptionKey.BoardDifficulty);
         
-        //default board size
-        int columns = 9;
-        int rows = 9;
-        int mines = 10;
-        
         //determine board specs
-        switch(BoardDifficulty.Selections.values()[boardDifficultyIndex])
-        {
-            case Beginner:
-                columns = 9;
-                rows = 9;
-                mines = 10;
-                break;
-                
-            case Intermediate:
-                columns = 16;
-                rows = 16;
-                mines = 40;
-                break;
-                
-            case Expert:
-                columns = 22;
-                rows = 22;
-                mines = 99;
-                break;
-        }
+        final BoardDifficulty.Selections difficulty = BoardDifficulty.Selections.values()[boardDifficultyIndex];
+        
+        final int columns = difficulty.getColumns();
+        final int rows = difficulty.getRows();
+        final int mines = difficulty.getMines();
+        
+        //should the boards be solvable without guessing
+        final boolean noGuess = (Toggle.values()[menu.getOptionSelectionIndex(LayerKey.Options, OptionKey.NoGuess)] == Toggle.On);
         
         //dimensions of our puzzle
         int width, height;
@@ -147,7 +153,7 @@ public final class Manager implements IElement
                 
                 agent = new Agent(width, height, OpponentDifficulty.Selections.values()[opponentDifficultyIndex]);
                 agent.setLocation(screen.x + (screen.width / 2) + (screen.width / 4) - (width / 2), startY);
-                agent.createBoard(columns, rows, mines, random);
+                agent.createBoard(columns, rows, mines, createFactory(columns, rows, mines, noGuess, AGENT_INDEX), Replay.createRandom(seed, AGENT_INDEX));
                 agent.setImage(engine.getResources().getGameImage(Keys.Original));
                 
                 break;
@@ -185,7 +191,7 @@ public final class Manager implements IElement
         }
         
         //set the size of the board
-        human.createBoard(columns, rows, mines, random);
+        human.createBoard(columns, rows, mines, createFactory(columns, rows, mines, noGuess, HUMAN_INDEX), Replay.createRandom(seed, HUMAN_INDEX));
         
         //set the sprite sheet image
         human.setImage(engine.getResources().getGameImage(Keys.Original));
@@ -193,7 +199,40 @@ public final class Manager implements IElement
         //play new game sound effect
         engine.getResources().playGameAudio(GameAudio.Keys.NewGame);
         
-        //System.out.println("Seed - " + seed);
+        //record the game so it can be reproduced
+        if (Shared.RECORD_REPLAY)
+        {
+            //the number of updates per second the game is running at
+            final int ups = (int)Math.round(1000000000.0 / engine.getMain().getTime());
+            
+            replay = new Replay(seed, columns, rows, mines, noGuess, Player.BOARD_START_X, Player.BOARD_START_Y, ups, (agent != null) ? 2 : 1);
+            
+            human.setReplay(replay, HUMAN_INDEX);
+            
+            if (agent != null)
+                agent.setReplay(replay, AGENT_INDEX);
+        }
+        
+        //publish the new boards so they can be drawn right away
+        publish();
+    }
+    
+    /**
+     * Create the object that generates the mine layouts of a player in the background
+     * @param columns Board columns
+     * @param rows Board rows
+     * @param mines The number of mines
+     * @param noGuess Should the boards be solvable without guessing
+     * @param player The index of the player
+     * @return The factory, already generating layouts
+     */
+    private BoardFactory createFactory(final int columns, final int rows, final int mines, final boolean noGuess, final int player)
+    {
+        final BoardFactory factory = new BoardFactory(columns, rows, mines, noGuess, Replay.createLayoutSeed(seed, player));
+        
+        factory.start();
+        
+        return factory;
     }
     
     /**
@@ -234,6 +273,9 @@ public final class Manager implements IElement
     @Override
     public void dispose()
     {
+        //write the recording of this game
+        stopRecording();
+        
         random = null;
         
         if (human != null)
@@ -265,17 +307,138 @@ public final class Manager implements IElement
     @Override
     public void update(final Engine engine) throws Exception
     {
-        if (hasGameOver())
+        //save the game in progress
+        if (engine.getKeyboard().hasKeyPressed(KeyEvent.VK_F5))
+        {
+            engine.getKeyboard().reset();
+            
+            try
+            {
+                save(SAVE_FILE);
+                human.addStatusMessage(SAVE_STATUS_MESSAGE);
+            }
+            catch (Exception e)
+            {
+                e.printStackTrace();
+                human.addStatusMessage(SAVE_FAILED_STATUS_MESSAGE);
+            }
+        }
+        
+        //restore the saved game
+        if (engine.getKeyboard().hasKeyPressed(KeyEvent.VK_F9) && SAVE_FILE.exists())
+        {
+            engine.getKeyboard().reset();
+            
+            try
+            {
+                restore(SAVE_FILE);
+                human.addStatusMessage(RESTORE_STATUS_MESSAGE);
+            }
+            catch (Exception e)
+            {
+                //the game is left as it was
+                e.printStackTrace();
+                human.addStatusMessage(RESTORE_FAILED_STATUS_MESSAGE);
+            }
+        }
+        
+        if (!hasGameOver())
+        {
+            //any events will now be recorded under the next update
+            if (replay != null)
+                replay.tick();
+            
+            if (human != null)
+                human.update(engine);
+            
+            if (agent != null)
+                agent.update(engine);
+            
+            //check if the game has ended depending on the game mode
+            checkMode(engine.getResources());
+        }
+        
+        //now that everything has been updated publish it to be drawn
+        publish();
+    }
+    
+    /**
+     * Publish the current state of each player so it can be drawn by the render thread
+     */
+    private void publish()
+    {
+        if (agent != null)
+            agent.publish();
+        
+        if (human != null)
+            human.publish();
+    }
+    
+    /**
+     * Save the game in progress
+     * @param file Destination
+     * @throws Exception 
+     */
+    public void save(final File file) throws Exception
+    {
+        if (agent != null)
+        {
+            SaveGame.save(file, mode.ordinal(), human, agent);
+        }
+        else
+        {
+            SaveGame.save(file, mode.ordinal(), human);
+        }
+    }
+    
+    /**
+     * Restore a saved game, the saved game needs to have the same mode and board size
+     * @param file Source
+     * @throws Exception 
+     */
+    public void restore(final File file) throws Exception
+    {
+        if (agent != null)
+        {
+            SaveGame.load(file, mode.ordinal(), human, agent);
+        }
+        else
+        {
+            SaveGame.load(file, mode.ordinal(), human);
+        }
+        
+        //the replay can't reproduce the restored boards so only the game up to here is kept
+        stopRecording();
+        
+        //the restored game may still be in progress
+        this.gameover = false;
+    }
+    
+    /**
+     * Write the recording of this game and stop recording, if we are recording
+     */
+    private void stopRecording()
+    {
+        if (replay == null)
             return;
         
         if (human != null)
-            human.update(engine);
+            human.setReplay(null, HUMAN_INDEX);
         
         if (agent != null)
-            agent.update(engine);
+            agent.setReplay(null, AGENT_INDEX);
         
-        //check if the game has ended depending on the game mode
-        checkMode(engine.getResources());
+        try
+        {
+            replay.save(new File(Shared.DATA_DIRECTORY, "replay-" + seed + Shared.REPLAY_EXTENSION));
+        }
+        catch (Exception e)
+        {
+            e.printStackTrace();
+        }
+        
+        replay.dispose();
+        replay = null;
     }
     
     /**
@@ -359,7 +522,7 @@ public final class Manager implements IElement
                         else
                         {
                             //else generate a new board
-                            human.reset(random);
+                            human.reset();
                         }
                     }
                     else
@@ -368,7 +531,7 @@ public final class Manager implements IElement
                         human.addStatusMessage(HIT_MINE_DEFAULT_MESSAGE);
 
                         //reset board
-                        human.reset(random);
+                        human.reset();
                     }
                 }
                 else
@@ -407,7 +570,7 @@ public final class Manager implements IElement
                                 resources.playGameAudio(GameAudio.Keys.Win);
 
                                 //generate a new board
-                                agent.reset(random);
+                                agent.reset();
                             }
                         }
                         else
@@ -416,7 +579,7 @@ public final class Manager implements IElement
                             agent.addStatusMessage(HIT_MINE_DEFAULT_MESSAGE);
 
                             //reset board
-                            agent.reset(random);
+                            agent.reset();
                         }
                     }
                 }
@@ -430,6 +593,17 @@ public final class Manager implements IElement
      */
     @Override
     public void render(final Graphics graphics)
+    {
+        render(graphics, 1.0f);
+    }
+    
+    /**
+     * Draw all of our application elements.<br>
+     * This is called from the render thread, the players will draw their most recently published state
+     * @param graphics Graphics object used for drawing
+     * @param interpolation How far we are between the previous and next update, from 0.0 to 1.0
+     */
+    public void render(final Graphics graphics, final float interpolation)
     {
         //draw background if exists
         if (background != null)
@@ -441,14 +615,14 @@ public final class Manager implements IElement
         if (agent != null)
         {
             //draws object board/info and status screen
-            agent.render(graphics);
+            agent.render(graphics, interpolation);
         }
         
         //draw human if exists
         if (human != null)
         {
             //draws object board/info and status screen
-            human.render(graphics);
+            human.render(graphics, interpolation);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,169 @@
+package com.gamesbykevin.minesweeper.manager;
+
+import com.gamesbykevin.minesweeper.player.Player;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Save and restore a game in progress.<br>
+ * The players are written into a single buffer with the board bit-packed and written to the file in one go.<br>
+ * When restoring the whole file is checked before any player is changed, so a corrupt file leaves the game as it was.
+ * @author GOD
+ */
+public final class SaveGame
+{
+    //identifies a save file "MSSV"
+    private static final int MAGIC = 0x4D535356;
+    
+    //the version of the file format, version 2 added the no guess flag and the start tile of each board
+    private static final byte VERSION = 2;
+    
+    //files this size or larger will be memory mapped instead of read into the heap, a board of about 87,000 tiles
+    private static final long MAP_THRESHOLD = 64 * 1024;
+    
+    private SaveGame()
+    {
+        //static methods only
+    }
+    
+    /**
+     * Write the game to the specified file
+     * @param file Destination
+     * @param mode The ordinal of the game mode being played
+     * @param players The players in the game
+     * @throws IOException
+     */
+    public static void save(final File file, final int mode, final Player... players) throws IOException
+    {
+        //header size
+        int size = 8 + (players.length * 16);
+        
+        for (Player player : players)
+        {
+            size += player.getSaveSize();
+        }
+        
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+        
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.put((byte)mode);
+        buffer.put((byte)(players[0].getStartTile() >= 0 ? 1 : 0));
+        buffer.put((byte)players.length);
+        
+        //write the board specs first so they can be checked before restoring anything
+        for (Player player : players)
+        {
+            buffer.putInt(player.getColumnCount());
+            buffer.putInt(player.getRowCount());
+            buffer.putInt(player.getMineCount());
+            buffer.putInt(player.getStartTile());
+        }
+        
+        for (Player player : players)
+        {
+            player.write(buffer);
+        }
+        
+        buffer.flip();
+        
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            while (buffer.hasRemaining())
+            {
+                channel.write(buffer);
+            }
+        }
+    }
+    
+    /**
+     * Restore the game from the specified file.<br>
+     * The players must have the same game mode and board size as the saved game.
+     * @param file Source
+     * @param mode The ordinal of the game mode being played
+     * @param players The players in the game
+     * @throws Exception If the saved game does not match the current game
+     */
+    public static void load(final File file, final int mode, final Player... players) throws Exception
+    {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            final ByteBuffer buffer;
+            
+            if (channel.size() >= MAP_THRESHOLD)
+            {
+                //large boards are mapped so the file isn't copied into the heap
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            else
+            {
+                buffer = ByteBuffer.allocate((int)channel.size());
+                
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0)
+                {
+                    //keep reading until the buffer is full
+                }
+                
+                buffer.flip();
+            }
+            
+            if (buffer.getInt() != MAGIC)
+                throw new Exception("Not a saved game file.");
+            
+            final byte version = buffer.get();
+            
+            if (version != VERSION)
+                throw new Exception("Unknown saved game version found (" + version + ").");
+            
+            if (buffer.get() != mode)
+                throw new Exception("Saved game was not played in the same mode.");
+            
+            //the new boards of a restored game will be generated the same way
+            if ((buffer.get() != 0) != (players[0].getStartTile() >= 0))
+                throw new Exception("Saved game does not have the same no guess setting.");
+            
+            if (buffer.get() != players.length)
+                throw new Exception("Saved game does not have the same number of players.");
+            
+            for (Player player : players)
+            {
+                final int columns = buffer.getInt();
+                final int rows = buffer.getInt();
+                final int mines = buffer.getInt();
+                
+                if (columns != player.getColumnCount() || rows != player.getRowCount() || mines != player.getMineCount())
+                    throw new Exception("Saved game does not have the same board size.");
+                
+                if (buffer.getInt() != player.getStartTile())
+                    throw new Exception("Saved game does not have the same start tile.");
+            }
+            
+            //check every player can be read before any of them are changed
+            final int start = buffer.position();
+            
+            try
+            {
+                for (Player player : players)
+                {
+                    player.check(buffer);
+                }
+            }
+            catch (BufferUnderflowException e)
+            {
+                throw new Exception("Saved game is incomplete.");
+            }
+            
+            buffer.position(start);
+            
+            for (Player player : players)
+            {
+                player.read(buffer);
+            }
+        }
+    }
+}
\ No newline at end of file
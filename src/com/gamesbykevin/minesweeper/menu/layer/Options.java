@@ -43,6 +43,7 @@ public final class Options extends Layer implements LayerRules
         super.add(OptionKey.BoardDifficulty,        new BoardDifficulty(audio));
         super.add(OptionKey.Mode,                   new Mode(audio));
         super.add(OptionKey.OpponentDifficulty,     new OpponentDifficulty(audio));
+        super.add(OptionKey.NoGuess,                new NoGuess(audio));
         
         //don't add sound option for now
         //super.add(OptionKey.Sound,                  new Sound(audio));
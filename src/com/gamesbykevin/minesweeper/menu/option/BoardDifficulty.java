@@ -14,24 +14,48 @@ public final class BoardDifficulty extends Option
     
     public enum Selections
     {
-        //45 seconds
-        Beginner(45000),
+        //9x9 with 10 mines, 45 seconds
+        Beginner(45000, 9, 9, 10),
         
-        //5 minutes
-        Intermediate(300000),
+        //16x16 with 40 mines, 5 minutes
+        Intermediate(300000, 16, 16, 40),
         
-        //10 minutes
-        Expert(600000);
+        //22x22 with 99 mines, 10 minutes
+        Expert(600000, 22, 22, 99);
         
         private long delay;
         
+        //the size of the board
+        private final int columns, rows, mines;
+        
         /**
          * New selection
          * @param delay The time delay if the player plays timed mode.
+         * @param columns Board columns
+         * @param rows Board rows
+         * @param mines The number of mines
          */
-        private Selections(final long delay)
+        private Selections(final long delay, final int columns, final int rows, final int mines)
         {
             this.delay = Timers.toNanoSeconds(delay);
+            this.columns = columns;
+            this.rows = rows;
+            this.mines = mines;
+        }
+        
+        public int getColumns()
+        {
+            return this.columns;
+        }
+        
+        public int getRows()
+        {
+            return this.rows;
+        }
+        
+        public int getMines()
+        {
+            return this.mines;
         }
         
         /**
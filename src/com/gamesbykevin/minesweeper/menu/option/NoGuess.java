@@ -0,0 +1,28 @@
+package com.gamesbykevin.minesweeper.menu.option;
+
+import com.gamesbykevin.minesweeper.menu.CustomMenu;
+import com.gamesbykevin.framework.menu.Option;
+
+import com.gamesbykevin.framework.resources.Audio;
+
+/**
+ * The setup of this specific option, when on every board can be solved without guessing
+ * @author GOD
+ */
+public final class NoGuess extends Option
+{
+    private static final String TITLE = "No Guess: ";
+    
+    public NoGuess(final Audio audio)
+    {
+        super(TITLE);
+        
+        for (CustomMenu.Toggle toggle : CustomMenu.Toggle.values())
+        {
+            super.add(toggle.toString(), audio);
+        }
+        
+        //default to off
+        super.setIndex(0);
+    }
+}
\ No newline at end of file
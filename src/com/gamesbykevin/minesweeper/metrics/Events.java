@@ -0,0 +1,181 @@
+package com.gamesbykevin.minesweeper.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records typed events on the hot paths of the game into a fixed size ring, like a flight recorder.<br>
+ * When recording is off the only cost is checking isEnabled() so the events can stay in a normal build.<br>
+ * Recording can be turned on at startup with -Dminesweeper.events=true
+ * @author GOD
+ */
+public final class Events
+{
+    /**
+     * The different events that can be recorded, each event has 2 values
+     */
+    public enum Type
+    {
+        //a tile was selected, values are the cells revealed and the board size
+        BoardReveal("revealed", "cells"),
+        
+        //a new board was generated, values are the board size and the mine count
+        BoardReset("cells", "mines"),
+        
+        //the agent looked for its next move, values are the frontier size and the deductions found
+        AgentThink("frontier", "deductions"),
+        
+        //a resource group was loaded, values are the group loaded and the step number
+        ResourceLoad("group", "step"),
+        
+        //the image was drawn to the screen, values are the destination width and height
+        ScreenDraw("width", "height"),
+        
+        //no layout could be verified to be solvable without guessing, values are the layouts checked and the mine count
+        NoGuessFailed("checks", "mines");
+        
+        //the name of each value
+        private final String first, second;
+        
+        private Type(final String first, final String second)
+        {
+            this.first = first;
+            this.second = second;
+        }
+        
+        public String getFirst()
+        {
+            return this.first;
+        }
+        
+        public String getSecond()
+        {
+            return this.second;
+        }
+    }
+    
+    //the number of events we keep, must be a power of 2
+    private static final int CAPACITY = 1 << 14;
+    
+    //used to get the index in the ring
+    private static final int MASK = CAPACITY - 1;
+    
+    //are we recording
+    private static volatile boolean enabled = Boolean.getBoolean("minesweeper.events");
+    
+    //the total number of events recorded, the next event is written to this index in the ring
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    
+    //event data, each index is 1 event
+    private static final byte[] TYPES = new byte[CAPACITY];
+    private static final long[] STARTS = new long[CAPACITY];
+    private static final long[] DURATIONS = new long[CAPACITY];
+    private static final int[] FIRSTS = new int[CAPACITY];
+    private static final int[] SECONDS = new int[CAPACITY];
+    
+    private Events()
+    {
+        //static methods only
+    }
+    
+    /**
+     * Are we recording events
+     * @return true if events are recorded, false otherwise
+     */
+    public static boolean isEnabled()
+    {
+        return enabled;
+    }
+    
+    /**
+     * Start/Stop recording events
+     * @param enabled true to record events, false otherwise
+     */
+    public static void setEnabled(final boolean enabled)
+    {
+        Events.enabled = enabled;
+    }
+    
+    /**
+     * Get the time an event starts.<br>
+     * This avoids reading the clock when we aren't recording.
+     * @return The current time in nanoseconds, 0 if we aren't recording
+     */
+    public static long start()
+    {
+        return (enabled) ? System.nanoTime() : 0;
+    }
+    
+    /**
+     * Record an event that has finished, nothing is recorded if we aren't recording.<br>
+     * Once the ring is full the oldest events are overwritten.
+     * @param type The type of event
+     * @param start The time the event started, from start()
+     * @param first The first value of the event
+     * @param second The second value of the event
+     */
+    public static void commit(final Type type, final long start, final int first, final int second)
+    {
+        //we weren't recording when the event started, or we aren't now
+        if (!enabled || start == 0)
+            return;
+        
+        final int index = (int)(SEQUENCE.getAndIncrement() & MASK);
+        
+        TYPES[index] = (byte)type.ordinal();
+        STARTS[index] = start;
+        DURATIONS[index] = System.nanoTime() - start;
+        FIRSTS[index] = first;
+        SECONDS[index] = second;
+    }
+    
+    /**
+     * Get the total number of events recorded
+     * @return The number of events, including the ones that have been overwritten
+     */
+    public static long getCount()
+    {
+        return SEQUENCE.get();
+    }
+    
+    /**
+     * Write the events still in the ring to the specified file, oldest first
+     * @param file Destination
+     * @throws IOException 
+     */
+    public static void dump(final File file) throws IOException
+    {
+        final long count = SEQUENCE.get();
+        
+        //the oldest event still in the ring
+        final long first = Math.max(0, count - CAPACITY);
+        
+        try (PrintWriter writer = new PrintWriter(file, "UTF-8"))
+        {
+            writer.println("event,start_ns,duration_ns,name1,value1,name2,value2");
+            
+            for (long sequence = first; sequence < count; sequence++)
+            {
+                final int index = (int)(sequence & MASK);
+                
+                final Type type = Type.values()[TYPES[index]];
+                
+                writer.print(type.name());
+                writer.print(',');
+                writer.print(STARTS[index]);
+                writer.print(',');
+                writer.print(DURATIONS[index]);
+                writer.print(',');
+                writer.print(type.getFirst());
+                writer.print(',');
+                writer.print(FIRSTS[index]);
+                writer.print(',');
+                writer.print(type.getSecond());
+                writer.print(',');
+                writer.println(SECONDS[index]);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,159 @@
+package com.gamesbykevin.minesweeper.metrics;
+
+import java.util.Arrays;
+
+/**
+ * A latency histogram with log-linear buckets, similar to an HDR histogram.<br>
+ * Each power of 2 is split into 16 buckets so a value is never off by more than ~6%.<br>
+ * All buckets are created up front so recording a value never allocates.<br>
+ * Values should only be recorded from 1 thread, other threads may read an approximate result.
+ * @author GOD
+ */
+public final class Histogram
+{
+    //the number of bits used for the buckets within each power of 2
+    private static final int SUB_BUCKET_BITS = 4;
+    
+    //the number of buckets within each power of 2
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    
+    //values below this each have their own bucket
+    private static final int LINEAR_COUNT = SUB_BUCKET_COUNT * 2;
+    
+    //enough buckets to cover every positive long
+    private static final int BUCKET_COUNT = ((64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT) + SUB_BUCKET_COUNT;
+    
+    //the number of values in each bucket
+    private final long[] counts = new long[BUCKET_COUNT];
+    
+    //the number of values recorded
+    private long count = 0;
+    
+    //the sum of all values recorded
+    private long total = 0;
+    
+    //the smallest/largest value recorded
+    private long min = Long.MAX_VALUE;
+    private long max = 0;
+    
+    /**
+     * Record a value
+     * @param value The value, negative values are recorded as 0
+     */
+    public void record(long value)
+    {
+        if (value < 0)
+            value = 0;
+        
+        counts[getIndex(value)]++;
+        
+        count++;
+        total += value;
+        
+        if (value < min)
+            min = value;
+        if (value > max)
+            max = value;
+    }
+    
+    /**
+     * Remove all recorded values
+     */
+    public void reset()
+    {
+        Arrays.fill(counts, 0);
+        
+        count = 0;
+        total = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+    
+    /**
+     * Get the bucket the value belongs in
+     * @param value The value, can't be negative
+     * @return Index of the bucket
+     */
+    private static int getIndex(final long value)
+    {
+        //small values are stored exactly
+        if (value < LINEAR_COUNT)
+            return (int)value;
+        
+        //shift so the value has SUB_BUCKET_BITS + 1 bits left
+        final int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        
+        return (shift * SUB_BUCKET_COUNT) + (int)(value >>> shift);
+    }
+    
+    /**
+     * Get the largest value that belongs in the bucket
+     * @param index Index of the bucket
+     * @return The value
+     */
+    private static long getHighestValue(final int index)
+    {
+        if (index < LINEAR_COUNT)
+            return index;
+        
+        final int shift = (index >> SUB_BUCKET_BITS) - 1;
+        final long sub = index - (shift * SUB_BUCKET_COUNT);
+        
+        return ((sub + 1) << shift) - 1;
+    }
+    
+    /**
+     * Get the value that the specified percentage of the recorded values are at or below
+     * @param percentile From 0.0 to 100.0
+     * @return The value, 0 if nothing has been recorded
+     */
+    public long getPercentile(final double percentile)
+    {
+        final long size = count;
+        
+        if (size == 0)
+            return 0;
+        
+        //the number of values that need to be at or below the result
+        long target = (long)Math.ceil((percentile / 100.0) * size);
+        
+        if (target < 1)
+            target = 1;
+        
+        long sum = 0;
+        
+        for (int index = 0; index < counts.length; index++)
+        {
+            sum += counts[index];
+            
+            if (sum >= target)
+                return Math.min(getHighestValue(index), max);
+        }
+        
+        return max;
+    }
+    
+    public long getCount()
+    {
+        return this.count;
+    }
+    
+    public long getMin()
+    {
+        return (count == 0) ? 0 : this.min;
+    }
+    
+    public long getMax()
+    {
+        return this.max;
+    }
+    
+    /**
+     * Get the average of all values recorded
+     * @return The average, 0 if nothing has been recorded
+     */
+    public long getMean()
+    {
+        return (count == 0) ? 0 : (total / count);
+    }
+}
\ No newline at end of file
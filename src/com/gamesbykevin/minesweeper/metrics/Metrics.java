@@ -0,0 +1,346 @@
+package com.gamesbykevin.minesweeper.metrics;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Keeps a latency histogram for each phase of the game loop.<br>
+ * Recording is always on and doesn't allocate, so frame hitches can be found in a normal build.
+ * @author GOD
+ */
+public final class Metrics
+{
+    /**
+     * The different phases we measure
+     */
+    public enum Phase
+    {
+        //the whole engine update, recorded on the update thread
+        EngineUpdate,
+        
+        //the game elements update, recorded on the update thread
+        ManagerUpdate,
+        
+        //the agent looking for its next move, recorded on the update thread
+        AgentThink,
+        
+        //drawing a player and its board, recorded on the render thread
+        BoardRender,
+        
+        //drawing the status messages of a player, recorded on the render thread
+        StatusRender,
+        
+        //drawing the finished image to the screen, recorded on the render thread
+        ScreenBlit,
+        
+        //from a mouse event to the screen showing the tiles it changed, recorded on the render thread
+        InputLatency,
+    }
+    
+    //how many nanoseconds are in a microsecond
+    private static final long NANO_SECONDS_PER_MICRO_SECOND = 1000L;
+    
+    //a histogram for each phase
+    private static final Histogram[] HISTOGRAMS = new Histogram[Phase.values().length];
+    
+    //the bytes allocated by the render thread for each frame
+    private static final Histogram ALLOCATIONS = new Histogram();
+    
+    //can the jvm measure the bytes allocated by a thread
+    private static final boolean MEASURE_ALLOCATIONS = canMeasureAllocations();
+    
+    //are the metrics written to file when the application exits, set with -Dminesweeper.metrics=true
+    private static final boolean DUMP = isEnabled("minesweeper.metrics");
+    
+    //is the overlay displayed, toggled from the update thread and read by the render thread
+    private static volatile boolean overlay = false;
+    
+    //the time of the input event shown by the frame being drawn, only used by the render thread
+    private static long presented = 0;
+    
+    //reuse this when building the overlay text
+    private static final StringBuilder BUILDER = new StringBuilder();
+    
+    static
+    {
+        for (int index = 0; index < HISTOGRAMS.length; index++)
+        {
+            HISTOGRAMS[index] = new Histogram();
+        }
+    }
+    
+    private Metrics()
+    {
+        //static methods only
+    }
+    
+    /**
+     * Check if the system property is set to true
+     * @param name The name of the property
+     * @return true if set to true, false otherwise or if we aren't allowed to read it (applet)
+     */
+    private static boolean isEnabled(final String name)
+    {
+        try
+        {
+            return Boolean.getBoolean(name);
+        }
+        catch (SecurityException e)
+        {
+            return false;
+        }
+    }
+    
+    /**
+     * Are the metrics written to file when the application exits
+     * @return true if asked for with the system property, false otherwise
+     */
+    public static boolean hasDump()
+    {
+        return DUMP;
+    }
+    
+    /**
+     * Record the time since the phase started
+     * @param phase The phase that has finished
+     * @param start The time the phase started, from System.nanoTime()
+     */
+    public static void record(final Phase phase, final long start)
+    {
+        HISTOGRAMS[phase.ordinal()].record(System.nanoTime() - start);
+    }
+    
+    /**
+     * The frame being drawn shows the result of an input event.<br>
+     * This should only be called from the render thread.
+     * @param inputTime The time the input event was received, from System.nanoTime()
+     */
+    public static void present(final long inputTime)
+    {
+        presented = inputTime;
+    }
+    
+    /**
+     * The frame has been drawn to the screen, record the input latency if it showed the result of an input event.<br>
+     * This should only be called from the render thread.
+     */
+    public static void recordPresented()
+    {
+        if (presented == 0)
+            return;
+        
+        record(Phase.InputLatency, presented);
+        
+        presented = 0;
+    }
+    
+    /**
+     * Check if the jvm has the thread bean that can measure allocations.<br>
+     * The bean type is looked up by name so Metrics still loads on a jvm without com.sun.management.
+     * @return true if allocations can be measured, false otherwise
+     */
+    private static boolean canMeasureAllocations()
+    {
+        try
+        {
+            final Class<?> type = Class.forName("com.sun.management.ThreadMXBean");
+            
+            if (!type.isInstance(ManagementFactory.getThreadMXBean()))
+                return false;
+            
+            //the holder is only loaded once we know the type exists
+            return AllocationCounter.enable();
+        }
+        catch (Throwable e)
+        {
+            //allocations won't be measured
+            return false;
+        }
+    }
+    
+    /**
+     * Get the total number of bytes allocated by the current thread
+     * @return The number of bytes, 0 if allocations can't be measured
+     */
+    public static long getAllocatedBytes()
+    {
+        if (!MEASURE_ALLOCATIONS)
+            return 0;
+        
+        return AllocationCounter.getAllocatedBytes();
+    }
+    
+    /**
+     * Record the bytes allocated by the current thread while drawing a frame.<br>
+     * Once the game is running this should stay close to 0, the overlay itself allocates while visible.
+     * @param start The bytes allocated when the frame started, from getAllocatedBytes()
+     */
+    public static void recordAllocation(final long start)
+    {
+        if (MEASURE_ALLOCATIONS)
+            ALLOCATIONS.record(getAllocatedBytes() - start);
+    }
+    
+    /**
+     * Get the histogram of the bytes allocated for each frame
+     * @return Histogram
+     */
+    public static Histogram getAllocations()
+    {
+        return ALLOCATIONS;
+    }
+    
+    /**
+     * Get the histogram of the specified phase
+     * @param phase The phase
+     * @return Histogram
+     */
+    public static Histogram getHistogram(final Phase phase)
+    {
+        return HISTOGRAMS[phase.ordinal()];
+    }
+    
+    /**
+     * Show/Hide the overlay
+     */
+    public static void toggleOverlay()
+    {
+        overlay = !overlay;
+    }
+    
+    public static boolean hasOverlay()
+    {
+        return overlay;
+    }
+    
+    /**
+     * Draw the p50/p99/max of each phase in the top left corner.<br>
+     * This should only be called from the render thread.
+     * @param graphics Graphics object used for drawing
+     */
+    public static void render(final Graphics graphics)
+    {
+        final int height = graphics.getFontMetrics().getHeight();
+        
+        graphics.setColor(Color.BLACK);
+        graphics.fillRect(0, 0, 330, (height * (HISTOGRAMS.length + 2)) + 4);
+        graphics.setColor(Color.WHITE);
+        
+        int y = height;
+        
+        graphics.drawString("Phase (microseconds): p50 / p99 / max", 5, y);
+        
+        for (Phase phase : Phase.values())
+        {
+            final Histogram histogram = getHistogram(phase);
+            
+            y += height;
+            
+            BUILDER.setLength(0);
+            BUILDER.append(phase.name()).append(": ");
+            BUILDER.append(histogram.getPercentile(50) / NANO_SECONDS_PER_MICRO_SECOND).append(" / ");
+            BUILDER.append(histogram.getPercentile(99) / NANO_SECONDS_PER_MICRO_SECOND).append(" / ");
+            BUILDER.append(histogram.getMax() / NANO_SECONDS_PER_MICRO_SECOND);
+            
+            graphics.drawString(BUILDER.toString(), 5, y);
+        }
+        
+        y += height;
+        
+        BUILDER.setLength(0);
+        BUILDER.append("Frame bytes: ");
+        BUILDER.append(ALLOCATIONS.getPercentile(50)).append(" / ");
+        BUILDER.append(ALLOCATIONS.getPercentile(99)).append(" / ");
+        BUILDER.append(ALLOCATIONS.getMax());
+        
+        graphics.drawString(BUILDER.toString(), 5, y);
+    }
+    
+    /**
+     * Write a summary of each phase to the specified file
+     * @param file Destination
+     * @throws IOException 
+     */
+    public static void dump(final File file) throws IOException
+    {
+        try (PrintWriter writer = new PrintWriter(file, "UTF-8"))
+        {
+            writer.println("phase,count,mean_us,p50_us,p90_us,p99_us,p999_us,max_us");
+            
+            for (Phase phase : Phase.values())
+            {
+                final Histogram histogram = getHistogram(phase);
+                
+                writer.print(phase.name());
+                writer.print(',');
+                writer.print(histogram.getCount());
+                writer.print(',');
+                writer.print(histogram.getMean() / NANO_SECONDS_PER_MICRO_SECOND);
+                writer.print(',');
+                writer.print(histogram.getPercentile(50) / NANO_SECONDS_PER_MICRO_SECOND);
+                writer.print(',');
+                writer.print(histogram.getPercentile(90) / NANO_SECONDS_PER_MICRO_SECOND);
+                writer.print(',');
+                writer.print(histogram.getPercentile(99) / NANO_SECONDS_PER_MICRO_SECOND);
+                writer.print(',');
+                writer.print(histogram.getPercentile(99.9) / NANO_SECONDS_PER_MICRO_SECOND);
+                writer.print(',');
+                writer.println(histogram.getMax() / NANO_SECONDS_PER_MICRO_SECOND);
+            }
+            
+            writer.println();
+            writer.println("frame_bytes_count,frame_bytes_mean,frame_bytes_p50,frame_bytes_p99,frame_bytes_max");
+            writer.print(ALLOCATIONS.getCount());
+            writer.print(',');
+            writer.print(ALLOCATIONS.getMean());
+            writer.print(',');
+            writer.print(ALLOCATIONS.getPercentile(50));
+            writer.print(',');
+            writer.print(ALLOCATIONS.getPercentile(99));
+            writer.print(',');
+            writer.println(ALLOCATIONS.getMax());
+        }
+    }
+    
+    /**
+     * Holds the thread bean that measures allocations.<br>
+     * This is the only class that refers to com.sun.management, it isn't loaded until the type is known to exist.
+     * @author GOD
+     */
+    private static final class AllocationCounter
+    {
+        //the thread bean of the jvm
+        private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        
+        private AllocationCounter()
+        {
+            //static methods only
+        }
+        
+        /**
+         * Turn on measuring the bytes allocated by each thread
+         * @return true if the jvm supports it, false otherwise
+         */
+        private static boolean enable()
+        {
+            if (!THREADS.isThreadAllocatedMemorySupported())
+                return false;
+            
+            THREADS.setThreadAllocatedMemoryEnabled(true);
+            return true;
+        }
+        
+        /**
+         * Get the total number of bytes allocated by the current thread
+         * @return The number of bytes
+         */
+        private static long getAllocatedBytes()
+        {
+            return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+    }
+}
\ No newline at end of file
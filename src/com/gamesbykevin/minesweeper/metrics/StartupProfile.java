@@ -0,0 +1,218 @@
+package com.gamesbykevin.minesweeper.metrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Measures how long it takes from the start of the application until the menu is first drawn.<br>
+ * Only measured when started with -Dminesweeper.profileStartup=true, the result is printed and added to a file so many cold starts can be compared.<br>
+ * Start with -Dminesweeper.exitAfterStartup=true to also exit once the menu is drawn (benchmarks and class data sharing training).
+ * @author GOD
+ */
+public final class StartupProfile
+{
+    /**
+     * The points during startup we measure, in the order they happen
+     */
+    public enum Mark
+    {
+        //the application started
+        Main,
+        
+        //the resources are about to be created, everything before this is mostly class loading and window setup
+        ResourcesStart,
+        
+        //the resources have been created
+        ResourcesCreated,
+        
+        //all assets have been loaded
+        AssetsLoaded,
+        
+        //the menu has been created
+        MenuCreated,
+        
+        //the menu has been drawn for the first time
+        FirstMenuFrame,
+    }
+    
+    //should exit once the menu is drawn, this also measures the startup
+    private static final boolean EXIT = isEnabled("minesweeper.exitAfterStartup");
+    
+    //is the startup measured
+    private static final boolean ENABLED = EXIT || isEnabled("minesweeper.profileStartup");
+    
+    //the time of each mark
+    private static final long[] TIMES = new long[Mark.values().length];
+    
+    //the time since the jvm started when the application started (milliseconds)
+    private static long uptime;
+    
+    //has the profile been written
+    private static volatile boolean finished = false;
+    
+    //how many nanoseconds are in a millisecond
+    private static final double NANO_SECONDS_PER_MILLI_SECOND = 1000000.0;
+    
+    private StartupProfile()
+    {
+        //static methods only
+    }
+    
+    /**
+     * Check if the system property is true
+     * @param name The name of the property
+     * @return true if set to true, false otherwise or if we aren't allowed to read it (applet)
+     */
+    private static boolean isEnabled(final String name)
+    {
+        try
+        {
+            return Boolean.getBoolean(name);
+        }
+        catch (SecurityException e)
+        {
+            return false;
+        }
+    }
+    
+    /**
+     * Record the time of the mark, only the first time is kept
+     * @param mark The point during startup
+     */
+    public static synchronized void mark(final Mark mark)
+    {
+        if (!ENABLED || TIMES[mark.ordinal()] != 0)
+            return;
+        
+        TIMES[mark.ordinal()] = System.nanoTime();
+        
+        if (mark == Mark.Main)
+        {
+            try
+            {
+                uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+            }
+            catch (SecurityException e)
+            {
+                //the jvm start time won't be known
+            }
+        }
+    }
+    
+    /**
+     * Has the menu been drawn for the first time
+     * @return true if the profile has been written, false otherwise
+     */
+    public static boolean hasFinished()
+    {
+        return finished;
+    }
+    
+    /**
+     * The menu has been drawn for the first time, write the profile if the startup is measured.<br>
+     * If requested the application will exit now.
+     * @param file Where the profile is added
+     */
+    public static void finish(final File file)
+    {
+        synchronized (StartupProfile.class)
+        {
+            if (finished)
+                return;
+            
+            mark(Mark.FirstMenuFrame);
+            
+            finished = true;
+        }
+        
+        if (!ENABLED)
+            return;
+        
+        long classes = 0;
+        
+        try
+        {
+            classes = ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount();
+        }
+        catch (SecurityException e)
+        {
+            //the number of classes won't be known
+        }
+        
+        final StringBuilder builder = new StringBuilder();
+        
+        builder.append(uptime).append(',');
+        
+        for (int index = 1; index < TIMES.length; index++)
+        {
+            builder.append(format(getDuration(Mark.values()[index - 1], Mark.values()[index]))).append(',');
+        }
+        
+        builder.append(format(getDuration(Mark.Main, Mark.FirstMenuFrame))).append(',');
+        builder.append(classes);
+        
+        System.out.println("Startup (ms): jvm " + uptime
+            + ", setup " + format(getDuration(Mark.Main, Mark.ResourcesStart))
+            + ", resources " + format(getDuration(Mark.ResourcesStart, Mark.ResourcesCreated))
+            + ", assets " + format(getDuration(Mark.ResourcesCreated, Mark.AssetsLoaded))
+            + ", menu " + format(getDuration(Mark.AssetsLoaded, Mark.MenuCreated))
+            + ", first frame " + format(getDuration(Mark.MenuCreated, Mark.FirstMenuFrame))
+            + ", total " + format(getDuration(Mark.Main, Mark.FirstMenuFrame))
+            + ", classes loaded " + classes);
+        
+        try
+        {
+            write(file, builder.toString());
+        }
+        catch (Exception e)
+        {
+            e.printStackTrace();
+        }
+        
+        if (EXIT)
+            System.exit(0);
+    }
+    
+    /**
+     * Get the time between 2 marks
+     * @param start The first mark
+     * @param end The second mark
+     * @return The duration in nanoseconds, 0 if either mark wasn't recorded
+     */
+    public static long getDuration(final Mark start, final Mark end)
+    {
+        if (TIMES[start.ordinal()] == 0 || TIMES[end.ordinal()] == 0)
+            return 0;
+        
+        return TIMES[end.ordinal()] - TIMES[start.ordinal()];
+    }
+    
+    private static String format(final long nanoSeconds)
+    {
+        return String.valueOf(Math.round((nanoSeconds / NANO_SECONDS_PER_MILLI_SECOND) * 10.0) / 10.0);
+    }
+    
+    /**
+     * Add the line to the file, the header is written if the file is new
+     * @param file Destination
+     * @param line The measurements
+     * @throws IOException 
+     */
+    private static void write(final File file, final String line) throws IOException
+    {
+        final boolean exists = file.exists();
+        
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8)))
+        {
+            if (!exists)
+                writer.println("jvm_ms,setup_ms,resources_ms,assets_ms,menu_ms,first_frame_ms,total_ms,classes");
+            
+            writer.println(line);
+        }
+    }
+}
\ No newline at end of file
@@ -3,12 +3,15 @@ package com.gamesbykevin.minesweeper.player;
 import com.gamesbykevin.framework.base.Cell;
 import com.gamesbykevin.framework.util.Timer;
 
+import com.gamesbykevin.minesweeper.board.BoardEvents;
 import com.gamesbykevin.minesweeper.board.tile.Tile;
-import com.gamesbykevin.minesweeper.board.tile.Tile.State;
 import com.gamesbykevin.minesweeper.engine.Engine;
+import com.gamesbykevin.minesweeper.metrics.Events;
+import com.gamesbykevin.minesweeper.metrics.Metrics;
 import com.gamesbykevin.minesweeper.menu.option.OpponentDifficulty.Selections;
 
 import java.awt.Point;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -25,6 +28,27 @@ public final class Agent extends Player implements IPlayer
     //list of locations/actions for the computer to take
     private Steps steps;
     
+    //reads the board events so we know which tiles have been completed without checking the whole board
+    private BoardEvents.Cursor cursor;
+    
+    //the tiles that have been completed
+    private List<Tile> completed;
+    
+    /**
+     * The different actions the computer can take on a tile
+     */
+    private enum Action
+    {
+        //select the tile
+        Select,
+        
+        //flag the tile
+        Flag,
+        
+        //select every neighbor that isn't flagged
+        Chord,
+    }
+    
     /**
      * Create computer opponent with specified dimensions and time delay between pixels
      * @param width
@@ -40,6 +64,9 @@ public final class Agent extends Player implements IPlayer
         
         //create new list of steps
         this.steps = new Steps();
+        
+        //create new list of completed tiles
+        this.completed = new ArrayList<>();
     }
     
     @Override
@@ -51,6 +78,11 @@ public final class Agent extends Player implements IPlayer
         
         steps.dispose();
         steps = null;
+        
+        completed.clear();
+        completed = null;
+        
+        cursor = null;
     }
     
     private Timer getMovementTimer()
@@ -114,8 +146,16 @@ public final class Agent extends Player implements IPlayer
         //if we don't have any steps to follow
         if (!steps.hasSteps())
         {
-            //select random tile
-            locateRandom(engine.getManager().getRandom());
+            if (getCompletedTiles().isEmpty())
+            {
+                //select random tile
+                locateRandom(engine.getManager().getRandom());
+            }
+            else
+            {
+                //the board may start with an opening so look for our next move
+                determineNextSteps(engine.getManager().getRandom());
+            }
             
             //we have a step now so no need to continue
             return;
@@ -142,21 +182,28 @@ public final class Agent extends Player implements IPlayer
         }
         
         //now that we are at our destination it is time to follow action
-        if (steps.getAction() == State.Flag)
-        {
-            //flag the specified tile
-            getBoard().updateRightReleased(getMouseLocation(), engine.getResources());
-        }
-        else
+        switch (steps.getAction())
         {
-            //currently if we aren't flagging a tile then we will select it
-            getBoard().updateReleased(getMouseLocation(), engine.getResources(), engine.getManager().getRandom());
-            
-            //now that selection was made if the game is now over don't continue
-            if (hasGameOver())
-                return;
+            case Flag:
+                //flag the specified tile
+                updateRightReleased(getMouseLocation(), engine.getResources());
+                break;
+                
+            case Chord:
+                //select all of the neighbors at once
+                updateChord(getMouseLocation(), engine.getResources());
+                break;
+                
+            default:
+                //select the specified tile
+                updateReleased(getMouseLocation(), engine.getResources());
+                break;
         }
         
+        //now that selection was made if the game is now over don't continue
+        if (hasGameOver())
+            return;
+        
         //at this point the step is completed, remove it from our list
         steps.remove();
         
@@ -164,8 +211,12 @@ public final class Agent extends Player implements IPlayer
         if (steps.hasSteps())
             return;
         
+        final long start = System.nanoTime();
+        
         //lets see if we can locate our next move
         determineNextSteps(engine.getManager().getRandom());
+        
+        Metrics.record(Metrics.Phase.AgentThink, start);
     }
     
     /**
@@ -173,8 +224,10 @@ public final class Agent extends Player implements IPlayer
      */
     private void determineNextSteps(final Random random)
     {
+        final long start = Events.start();
+        
         //get list of completed tiles
-        List<Tile> choices = getBoard().getCompletedTiles();
+        List<Tile> choices = getCompletedTiles();
         
         //check if we can flag any tiles
         locateFlagged(choices);
@@ -182,6 +235,10 @@ public final class Agent extends Player implements IPlayer
         //check if any tiles are safe to select
         locateSafeTiles(choices);
         
+        //record how much we had to look at and what we found, only counted when recording
+        if (Events.isEnabled())
+            Events.commit(Events.Type.AgentThink, start, getFrontierCount(choices), steps.getCount());
+        
         //if we still don't have any steps after the above checks, the following will last resort
         if (!steps.hasSteps())
         {
@@ -197,6 +254,65 @@ public final class Agent extends Player implements IPlayer
         }
     }
     
+    /**
+     * Get the tiles that have been completed.<br>
+     * The list is kept up to date from the board events instead of checking every tile.
+     * @return List of completed tiles
+     */
+    private List<Tile> getCompletedTiles()
+    {
+        //start reading the events, the tiles that are already completed come from the board
+        if (cursor == null)
+        {
+            cursor = getBoard().getEvents().createCursor();
+            completed.addAll(getBoard().getCompletedTiles());
+        }
+        
+        while (cursor.next())
+        {
+            switch (cursor.getType())
+            {
+                case Reset:
+                    completed.clear();
+                    break;
+                    
+                case Reveal:
+                    completed.add(getBoard().getTile(cursor.getColumn(), cursor.getRow()));
+                    break;
+                    
+                default:
+                    break;
+            }
+        }
+        
+        //if we fell behind we can't trust the list so check the board
+        if (cursor.hasMissed())
+        {
+            completed.clear();
+            completed.addAll(getBoard().getCompletedTiles());
+        }
+        
+        return completed;
+    }
+    
+    /**
+     * Count the completed tiles that still have available neighbors
+     * @param choices List of completed tiles
+     * @return The number of tiles on the frontier
+     */
+    private int getFrontierCount(final List<Tile> choices)
+    {
+        int count = 0;
+        
+        for (Tile tile : choices)
+        {
+            if (tile.getNumberCount() > 0 && !getBoard().getAvailableTiles(tile).isEmpty())
+                count++;
+        }
+        
+        return count;
+    }
+    
     /**
      * Here we will check all of the available tiles.<br>
      * For each of the available tiles we will get a list of neighbors.<br>
@@ -262,7 +378,7 @@ public final class Agent extends Player implements IPlayer
         if (!solutions.isEmpty())
         {
             //add the location/state to our steps
-            steps.add(choices.get(solutions.get(random.nextInt(solutions.size()))), State.Blank);
+            steps.add(choices.get(solutions.get(random.nextInt(solutions.size()))), Action.Select);
         }
     }
     
@@ -318,16 +434,8 @@ public final class Agent extends Player implements IPlayer
                 //if the # of flagged equals the # of mines any remaining tiles are safe to select
                 if (flagged == mines && flagged < tiles.size())
                 {
-                    //if there are any available tiles they are safe to select so add them to the list
-                    for (Tile tmp : tiles)
-                    {
-                        //if this tile is not flagged we have a valid move
-                        if (!tmp.isFlagged())
-                        {
-                            //add the location/state to our steps
-                            steps.add(tmp, State.Blank);
-                        }
-                    }
+                    //chord the tile so all of the remaining tiles are selected at once
+                    steps.add(tile, Action.Chord);
                 }
             }
         }
@@ -343,7 +451,7 @@ public final class Agent extends Player implements IPlayer
         final List<Tile> choices = getBoard().getAvailableTiles();
         
         //add the location/state to our steps
-        steps.add(choices.get(random.nextInt(choices.size())), State.Blank);
+        steps.add(choices.get(random.nextInt(choices.size())), Action.Select);
     }
     
     /**
@@ -396,7 +504,7 @@ public final class Agent extends Player implements IPlayer
                     if (!tmp.isFlagged())
                     {
                         //add the location/state to our steps
-                        steps.add(tmp, State.Flag);
+                        steps.add(tmp, Action.Flag);
                     }
                 }
             }
@@ -417,12 +525,23 @@ public final class Agent extends Player implements IPlayer
     
     /**
      * Call parent reset and clear the instruction list
-     * @param random Object used to make random decisions
      */
     @Override
-    public void reset(final Random random)
+    public void reset()
+    {
+        super.reset();
+        
+        steps.reset();
+    }
+    
+    /**
+     * Restore the player and clear the instruction list since the board has changed
+     * @param buffer Where the player is read from
+     */
+    @Override
+    public void read(final ByteBuffer buffer)
     {
-        super.reset(random);
+        super.read(buffer);
         
         steps.reset();
     }
@@ -436,7 +555,7 @@ public final class Agent extends Player implements IPlayer
         private List<Cell> locations;
         
         //what action to take
-        private List<State> actions;
+        private List<Action> actions;
         
         //the x,y coordinates where we want to move the mouse to
         private List<Point> destinations;
@@ -467,7 +586,7 @@ public final class Agent extends Player implements IPlayer
          * @param cell The location (column, row) of the tile.
          * @param action What do we want to do.
          */
-        private void add(final Cell cell, final State action)
+        private void add(final Cell cell, final Action action)
         {
             //make sure the location isn't already in the list
             for (Cell tmp : locations)
@@ -501,6 +620,15 @@ public final class Agent extends Player implements IPlayer
             return (!locations.isEmpty());
         }
         
+        /**
+         * Get the number of steps
+         * @return The number of steps left to follow
+         */
+        public int getCount()
+        {
+            return locations.size();
+        }
+        
         /**
          * Get the current location
          * @return The tile that we want to select
@@ -514,7 +642,7 @@ public final class Agent extends Player implements IPlayer
          * Get the current action
          * @return What action do we want to take? select tile, flag tile etc....
          */
-        public State getAction()
+        public Action getAction()
         {
             return actions.get(0);
         }
@@ -0,0 +1,144 @@
+package com.gamesbykevin.minesweeper.player;
+
+import com.gamesbykevin.framework.resources.Disposable;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * A line of text that is drawn to an image once and only drawn again when the value changes.<br>
+ * The label never changes so the only thing compared each frame is the value.
+ * @author GOD
+ */
+final class HudText implements Disposable
+{
+    //the text drawn before the value
+    private final String label;
+    
+    //the maximum width of the text
+    private final int width;
+    
+    //the text drawn with the current value
+    private BufferedImage image;
+    
+    //used to draw the text on the image
+    private Graphics2D graphics;
+    
+    //the font and value the image was drawn with
+    private Font font;
+    private String text;
+    private int number = Integer.MIN_VALUE;
+    
+    //the distance from the top of the image to the baseline of the text
+    private int ascent;
+    
+    /**
+     * Create a new line of text
+     * @param label The text drawn before the value
+     * @param width The maximum width of the text
+     */
+    HudText(final String label, final int width)
+    {
+        this.label = label;
+        this.width = width;
+    }
+    
+    @Override
+    public void dispose()
+    {
+        release();
+        
+        font = null;
+        text = null;
+    }
+    
+    /**
+     * Release the image and the graphics object used to draw on it
+     */
+    private void release()
+    {
+        if (graphics != null)
+            graphics.dispose();
+        
+        graphics = null;
+        
+        if (image != null)
+            image.flush();
+        
+        image = null;
+    }
+    
+    /**
+     * Draw the label followed by the value
+     * @param destination Graphics object the text is drawn to
+     * @param font The font of the text
+     * @param value The value, compared by equals() so the same text is not drawn again
+     * @param x x-coordinate of the text
+     * @param y y-coordinate of the baseline of the text
+     */
+    void render(final Graphics destination, final Font font, final String value, final int x, final int y)
+    {
+        if (font != this.font || !value.equals(text))
+        {
+            this.text = value;
+            update(destination, font, label + value);
+        }
+        
+        destination.drawImage(image, x, y - ascent, null);
+    }
+    
+    /**
+     * Draw the label followed by the value
+     * @param destination Graphics object the text is drawn to
+     * @param font The font of the text
+     * @param value The value
+     * @param x x-coordinate of the text
+     * @param y y-coordinate of the baseline of the text
+     */
+    void render(final Graphics destination, final Font font, final int value, final int x, final int y)
+    {
+        if (font != this.font || number != value)
+        {
+            this.number = value;
+            update(destination, font, label + value);
+        }
+        
+        destination.drawImage(image, x, y - ascent, null);
+    }
+    
+    /**
+     * Draw the text to our image
+     * @param destination Graphics object the text will be drawn to, used to measure the font
+     * @param font The font of the text
+     * @param description The full text
+     */
+    private void update(final Graphics destination, final Font font, final String description)
+    {
+        //create the image the first time or when the font changes
+        if (image == null || font != this.font)
+        {
+            release();
+            
+            final FontMetrics metrics = destination.getFontMetrics(font);
+            
+            this.image = new BufferedImage(width, metrics.getHeight(), BufferedImage.TYPE_INT_ARGB);
+            this.graphics = image.createGraphics();
+            this.graphics.setFont(font);
+            this.ascent = metrics.getAscent();
+            this.font = font;
+        }
+        
+        //clear the previous text
+        graphics.setComposite(AlphaComposite.Clear);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        graphics.setComposite(AlphaComposite.SrcOver);
+        
+        graphics.setColor(Color.WHITE);
+        graphics.drawString(description, 0, ascent);
+    }
+}
\ No newline at end of file
@@ -2,9 +2,12 @@ package com.gamesbykevin.minesweeper.player;
 
 import com.gamesbykevin.framework.input.Mouse;
 import com.gamesbykevin.minesweeper.engine.Engine;
+import com.gamesbykevin.minesweeper.engine.InputQueue;
 
 import java.awt.Graphics;
 import java.awt.Point;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
 
 public final class Human extends Player implements IPlayer
 {
@@ -51,59 +54,122 @@ public final class Human extends Player implements IPlayer
         if (hasGameOver())
             return;
         
-        //the pointer of the mouse cursor image is not in the upper left so we need to offset
-        getMouseLocation().translate(MOUSE_OFFSET_X, MOUSE_OFFSET_Y);
+        //has a mouse event updated the board
+        final boolean handled;
         
-        if (mouse.hitRightButton() && mouse.isMouseReleased())
+        //all of the changes made by these events are sent as one batch
+        getBoard().begin();
+        
+        try
         {
-            //update the board accordingly
-            getBoard().updateRightReleased(getMouseLocation(), engine.getResources());
-            
-            //reset mouse events
-            mouse.reset();
+            handled = updateInput(engine.getInput(), engine);
         }
-        
-        if (mouse.isMouseDragged())
+        finally
         {
-            //update the board accordingly
-            getBoard().updateDragged(getMouseLocation());
-            
-            //reset mouse events
-            mouse.reset();
+            getBoard().commit();
         }
         
-        if (mouse.isMouseReleased())
-        {
-            //update the board accordingly
-            getBoard().updateReleased(getMouseLocation(), engine.getResources(), engine.getManager().getRandom());
-            
-            //reset mouse events
+        //reset mouse events
+        if (handled)
             mouse.reset();
-        }
         
-        if (mouse.isMousePressed())
+        //reset mouse x, y
+        resetMouseLocation(origin);
+    }
+    
+    /**
+     * Check every event in the order it was received so fast clicks aren't lost
+     * @param input The input events received since the last update
+     * @param engine Our game engine object containing resources
+     * @return true if a mouse event has updated the board, false otherwise
+     * @throws Exception 
+     */
+    private boolean updateInput(final InputQueue input, final Engine engine) throws Exception
+    {
+        //has a mouse event updated the board
+        boolean handled = false;
+        
+        for (int index = 0; index < input.getCount(); index++)
         {
-            //update the board accordingly
-            getBoard().updatePressed(getMouseLocation());
+            final InputEvent event = input.getEvent(index);
             
-            //reset mouse events
-            mouse.reset();
+            //we only want mouse events
+            if (!(event instanceof MouseEvent))
+                continue;
+            
+            final MouseEvent mouseEvent = (MouseEvent)event;
+            
+            //reset mouse x, y to where the event happened
+            resetMouseLocation(mouseEvent.getPoint());
+            
+            //the pointer of the mouse cursor image is not in the upper left so we need to offset
+            getMouseLocation().translate(MOUSE_OFFSET_X, MOUSE_OFFSET_Y);
+            
+            switch (mouseEvent.getID())
+            {
+                case MouseEvent.MOUSE_RELEASED:
+                    if (mouseEvent.getButton() == MouseEvent.BUTTON3)
+                    {
+                        //update the board accordingly
+                        updateRightReleased(getMouseLocation(), engine.getResources(), input.getTime(index));
+                    }
+                    else if (mouseEvent.getButton() == MouseEvent.BUTTON2)
+                    {
+                        //the middle button will chord the tile
+                        updateChord(getMouseLocation(), engine.getResources(), input.getTime(index));
+                    }
+                    else
+                    {
+                        //update the board accordingly
+                        updateReleased(getMouseLocation(), engine.getResources(), input.getTime(index));
+                    }
+                    handled = true;
+                    break;
+                    
+                case MouseEvent.MOUSE_DRAGGED:
+                    //update the board accordingly
+                    updateDragged(getMouseLocation());
+                    handled = true;
+                    break;
+                    
+                case MouseEvent.MOUSE_PRESSED:
+                    //update the board accordingly
+                    updatePressed(getMouseLocation());
+                    handled = true;
+                    break;
+            }
+            
+            //the remaining events don't matter once the game is over
+            if (hasGameOver())
+                break;
         }
         
-        //reset mouse x, y
-        resetMouseLocation(origin);
+        return handled;
+    }
+    
+    /**
+     * The human mouse is also drawn outside of the canvas
+     * @return The location of the mouse relative to the screen
+     */
+    @Override
+    protected Point getUniversalLocation()
+    {
+        return this.universalLocation;
     }
     
     /**
      * Here we need to render the universal location of the mouse and not just the one for the player's canvas
      * @param graphics 
+     * @param frame The published frame to draw
+     * @param interpolation How far we are between the previous and next update, from 0.0 to 1.0
      */
     @Override
-    public void render(final Graphics graphics)
+    protected void render(final Graphics graphics, final PlayerFrame frame, final float interpolation)
     {
-        super.render(graphics);
+        super.render(graphics, frame, interpolation);
         
         //draw the mouse outside of the canvas
-        super.drawMouse(graphics, universalLocation);
+        if (frame.hasUniversal)
+            super.drawMouse(graphics, frame.universal, frame);
     }
 }
\ No newline at end of file
@@ -6,16 +6,32 @@ import com.gamesbykevin.framework.util.Timer;
 import com.gamesbykevin.framework.util.Timers;
 
 import com.gamesbykevin.minesweeper.board.Board;
+import com.gamesbykevin.minesweeper.board.BoardFactory;
+import com.gamesbykevin.minesweeper.board.BoardListener;
+import com.gamesbykevin.minesweeper.board.ChangeSet;
+import com.gamesbykevin.minesweeper.board.tile.Original;
+import com.gamesbykevin.minesweeper.board.tile.TileAtlas;
+import com.gamesbykevin.minesweeper.metrics.Metrics;
+import com.gamesbykevin.minesweeper.replay.Replay;
+import com.gamesbykevin.minesweeper.resources.Resources;
+import com.gamesbykevin.minesweeper.shared.CachedFont;
+import com.gamesbykevin.minesweeper.shared.TripleBuffer;
+
 import java.awt.Font;
 
 import java.awt.image.BufferedImage;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Image;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
-public abstract class Player extends Sprite implements Disposable
+public abstract class Player extends Sprite implements Disposable, BoardListener
 {
     //the board where the mines will be
     private Board board;
@@ -35,6 +51,28 @@ public abstract class Player extends Sprite implements Disposable
     //everything will be drawn relative to this image
     private BufferedImage image;
     
+    //graphics object used to draw on the image, created once and only used by the render thread
+    private Graphics2D imageGraphics;
+    
+    //the font of the timer and mine count
+    private final CachedFont font = new CachedFont(Font.BOLD, 18f);
+    
+    //the tile images sliced from the sprite sheet
+    private volatile TileAtlas atlas;
+    
+    //the timer and mine count are only drawn again when they change
+    private HudText timerText;
+    private HudText minesText;
+    
+    //formats the timer description on the render thread
+    private Timer timerFormat;
+    
+    //the seconds of the current timer description, only used by the render thread
+    private int timerSeconds = -1;
+    
+    //the timer description, only created again when the seconds change
+    private String timerDescription;
+    
     //source of icons
     private final Rectangle mouseSource;
     private final Rectangle successSource;
@@ -47,9 +85,13 @@ public abstract class Player extends Sprite implements Disposable
     protected static final int MOUSE_OFFSET_X = 9;
     protected static final int MOUSE_OFFSET_Y = 0;
     
+    //used to convert the time passed to whole seconds
+    private static final long MILLI_SECONDS_PER_SECOND = 1000L;
+    private static final long NANO_SECONDS_PER_SECOND = Timers.toNanoSeconds(MILLI_SECONDS_PER_SECOND);
+    
     //the starting position where the tiles will be drawn
-    private static final int BOARD_START_X = 10;
-    private static final int BOARD_START_Y = 45;
+    public static final int BOARD_START_X = 10;
+    public static final int BOARD_START_Y = 45;
     
     //is this player human
     private final boolean human;
@@ -60,6 +102,36 @@ public abstract class Player extends Sprite implements Disposable
     //where status messages will be displayed for this user
     private Status status;
     
+    //object used for the random decisions of the board
+    private Random random;
+    
+    //generates the mine layout of every new board
+    private BoardFactory factory;
+    
+    //where the board events are recorded (if recording)
+    private Replay replay;
+    
+    //the index of this player in the replay
+    private int index;
+    
+    //the total time that has passed while playing
+    private long elapsed = 0;
+    
+    //frames exchanged between the update thread and render thread
+    private TripleBuffer<PlayerFrame> frames;
+    
+    //all of the frames so the changes to the board can be added to each one
+    private PlayerFrame[] allFrames;
+    
+    //the mouse location that was last published
+    private final Point publishedMouse = new Point();
+    
+    //where the mouse will be drawn after interpolating, only used by the render thread
+    private final Point renderMouse = new Point();
+    
+    //the input time of the last frame drawn, only used by the render thread
+    private long presentedInputTime = 0;
+    
     protected Player(final int width, final int height, final boolean human)
     {
         //set the dimensions of our overall image
@@ -71,6 +143,13 @@ public abstract class Player extends Sprite implements Disposable
         //create new transparent image with width height
         this.image = new BufferedImage((int)getWidth(), (int)getHeight(), BufferedImage.TYPE_INT_ARGB);
         
+        //get graphics object for image
+        this.imageGraphics = image.createGraphics();
+        
+        //create the text for the timer and mine count
+        this.timerText = new HudText("Timer: ", image.getWidth());
+        this.minesText = new HudText((human) ? "Human Mines: " : "CPU Mines: ", image.getWidth());
+        
         //location of the timer
         this.timerLocation = new Point(10, 20);
 
@@ -91,6 +170,9 @@ public abstract class Player extends Sprite implements Disposable
         //create our timer object
         this.timer = new Timer();
         
+        //create the timer used to format the description
+        this.timerFormat = new Timer();
+        
         //create new status object
         this.status = new Status();
     }
@@ -104,12 +186,45 @@ public abstract class Player extends Sprite implements Disposable
         board = null;
         
         timer = null;
+        timerFormat = null;
+        timerDescription = null;
     
+        imageGraphics.dispose();
+        imageGraphics = null;
+        
         image.flush();
         image = null;
+        
+        timerText.dispose();
+        timerText = null;
+        
+        minesText.dispose();
+        minesText = null;
     
         status.dispose();
         status = null;
+        
+        if (factory != null)
+            factory.dispose();
+        
+        factory = null;
+        random = null;
+        replay = null;
+        frames = null;
+        allFrames = null;
+        atlas = null;
+    }
+    
+    /**
+     * Set the sprite sheet image and slice the tiles from it
+     * @param image The sprite sheet
+     */
+    @Override
+    public void setImage(final Image image)
+    {
+        super.setImage(image);
+        
+        this.atlas = (image != null) ? TileAtlas.get(image) : null;
     }
     
     /**
@@ -156,15 +271,61 @@ public abstract class Player extends Sprite implements Disposable
      * @param columns 
      * @param rows 
      * @param mines 
-     * @param random 
+     * @param factory Generates the mine layout of every new board
+     * @param random Object used for the random decisions of the board
      */
-    public void createBoard(final int columns, final int rows, int mines, final Random random)
+    public void createBoard(final int columns, final int rows, int mines, final BoardFactory factory, final Random random)
     {
+        //store our object used for random decisions
+        this.random = random;
+        
+        //store our object that generates the layouts
+        this.factory = factory;
+        
         //create board object and set default size/mines
         this.board = new Board(columns, rows, mines);
+        this.board.setStartTile(factory.getStart());
+        
+        //create the frames used to draw the board
+        this.allFrames = new PlayerFrame[] { new PlayerFrame(columns, rows), new PlayerFrame(columns, rows), new PlayerFrame(columns, rows) };
+        this.frames = new TripleBuffer<>(allFrames[0], allFrames[1], allFrames[2]);
+        
+        //we want to know which tiles change so only those are copied to the frames
+        this.board.addListener(this);
         
         //create the board
-        reset(random);
+        reset();
+    }
+    
+    /**
+     * Record all board events to the replay from here on
+     * @param replay The replay to record to
+     * @param index The index of this player in the replay
+     */
+    public void setReplay(final Replay replay, final int index)
+    {
+        this.replay = replay;
+        this.index = index;
+    }
+    
+    /**
+     * Record the event if we are recording a replay
+     * @param type The type of event
+     * @param point The location of the mouse, may be null
+     */
+    private void record(final Replay.Type type, final Point point)
+    {
+        if (replay == null)
+            return;
+        
+        if (point != null)
+        {
+            replay.add(index, type, point.x, point.y);
+        }
+        else
+        {
+            replay.add(index, type);
+        }
     }
     
     /**
@@ -186,13 +347,116 @@ public abstract class Player extends Sprite implements Disposable
         return this.mouseLocation;
     }
     
-    public void reset(final Random random)
+    /**
+     * Generate a new board
+     */
+    public void reset()
     {
-        //generate new board
-        getBoard().reset(random);
+        //generate new board from a layout that is ready
+        getBoard().reset(factory.take());
         
         //set locations of tiles
         getBoard().setLocations(BOARD_START_X, BOARD_START_Y);
+        
+        //record the new board
+        record(Replay.Type.Reset, null);
+    }
+    
+    /**
+     * Update the board when the mouse has been pressed
+     * @param point Location of the mouse
+     */
+    protected void updatePressed(final Point point)
+    {
+        record(Replay.Type.Press, point);
+        
+        getBoard().updatePressed(point);
+    }
+    
+    /**
+     * Update the board when the mouse has been dragged
+     * @param point Location of the mouse
+     */
+    protected void updateDragged(final Point point)
+    {
+        record(Replay.Type.Drag, point);
+        
+        getBoard().updateDragged(point);
+    }
+    
+    /**
+     * Update the board when the mouse has been released
+     * @param point Location of the mouse
+     * @param resources Object containing all resources
+     * @throws Exception 
+     */
+    protected void updateReleased(final Point point, final Resources resources) throws Exception
+    {
+        updateReleased(point, resources, 0);
+    }
+    
+    /**
+     * Update the board when the mouse has been released
+     * @param point Location of the mouse
+     * @param resources Object containing all resources
+     * @param inputTime The time the input event was received, 0 if there wasn't one
+     * @throws Exception 
+     */
+    protected void updateReleased(final Point point, final Resources resources, final long inputTime) throws Exception
+    {
+        record(Replay.Type.Release, point);
+        
+        getBoard().updateReleased(point, resources, random, inputTime);
+    }
+    
+    /**
+     * Update the board when the right mouse button has been released
+     * @param point Location of the mouse
+     * @param resources Object containing all resources
+     * @throws Exception 
+     */
+    protected void updateRightReleased(final Point point, final Resources resources) throws Exception
+    {
+        updateRightReleased(point, resources, 0);
+    }
+    
+    /**
+     * Update the board when the right mouse button has been released
+     * @param point Location of the mouse
+     * @param resources Object containing all resources
+     * @param inputTime The time the input event was received, 0 if there wasn't one
+     * @throws Exception 
+     */
+    protected void updateRightReleased(final Point point, final Resources resources, final long inputTime) throws Exception
+    {
+        record(Replay.Type.RightRelease, point);
+        
+        getBoard().updateRightReleased(point, resources, inputTime);
+    }
+    
+    /**
+     * Update the board when a tile has been chorded
+     * @param point Location of the mouse
+     * @param resources Object containing all resources
+     * @throws Exception 
+     */
+    protected void updateChord(final Point point, final Resources resources) throws Exception
+    {
+        updateChord(point, resources, 0);
+    }
+    
+    /**
+     * Update the board when a tile has been chorded
+     * @param point Location of the mouse
+     * @param resources Object containing all resources
+     * @param inputTime The time the input event was received, 0 if there wasn't one
+     * @throws Exception 
+     */
+    protected void updateChord(final Point point, final Resources resources, final long inputTime) throws Exception
+    {
+        record(Replay.Type.Chord, point);
+        
+        getBoard().updateChord(point, resources, inputTime);
     }
     
     /**
@@ -232,6 +496,21 @@ public abstract class Player extends Sprite implements Disposable
         return this.board;
     }
     
+    public int getColumnCount()
+    {
+        return getBoard().getColumnCount();
+    }
+    
+    public int getRowCount()
+    {
+        return getBoard().getRowCount();
+    }
+    
+    public int getMineCount()
+    {
+        return getBoard().getMineCount();
+    }
+    
     protected void resetMouseLocation(final Point mouseOrigin)
     {
         //set the mouse location
@@ -263,6 +542,9 @@ public abstract class Player extends Sprite implements Disposable
         //update the timer
         getTimer().update(time);
         
+        //keep track of the time passed
+        this.elapsed += time;
+        
         //check if the timer is set to a limit and if the time ran out
         checkTimer();
     }
@@ -283,10 +565,128 @@ public abstract class Player extends Sprite implements Disposable
                 
                 //time has ran out the player has lost
                 getBoard().setLose();
+                
+                //record the loss
+                record(Replay.Type.Lose, null);
             }
         }
     }
     
+    /**
+     * Get the tile selected at the start of each board
+     * @return The index of the tile in row-major order, -1 for random boards
+     */
+    public int getStartTile()
+    {
+        return getBoard().getStartTile();
+    }
+    
+    /**
+     * Get the number of bytes needed to save this player
+     * @return The number of bytes
+     */
+    public int getSaveSize()
+    {
+        int size = 32 + getBoard().getSaveSize();
+        
+        for (String message : getStatus().getMessages())
+        {
+            //utf-8 will never need more than 3 bytes per character
+            size += 2 + (message.length() * 3);
+        }
+        
+        return size;
+    }
+    
+    /**
+     * Write the player timer, wins, status messages and board to the buffer
+     * @param buffer Where the player is written to
+     */
+    public void write(final ByteBuffer buffer)
+    {
+        buffer.putInt(wins);
+        buffer.putLong(elapsed);
+        buffer.putLong(getTimer().getReset());
+        
+        final List<String> messages = getStatus().getMessages();
+        
+        buffer.put((byte)messages.size());
+        
+        for (String message : messages)
+        {
+            final byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+            
+            buffer.putShort((short)bytes.length);
+            buffer.put(bytes);
+        }
+        
+        getBoard().write(buffer);
+    }
+    
+    /**
+     * Make sure the whole player can be read from the buffer, nothing is changed.<br>
+     * The buffer is moved past the player.
+     * @param buffer Where the player would be read from
+     * @throws Exception If the buffer doesn't contain the whole player
+     */
+    public void check(final ByteBuffer buffer) throws Exception
+    {
+        //wins, elapsed time and timer
+        buffer.getInt();
+        buffer.getLong();
+        buffer.getLong();
+        
+        final int count = buffer.get();
+        
+        if (count < 0)
+            throw new Exception("Saved status messages are corrupt.");
+        
+        for (int i = 0; i < count; i++)
+        {
+            final int length = buffer.getShort();
+            
+            if (length < 0 || length > buffer.remaining())
+                throw new Exception("Saved status messages are corrupt.");
+            
+            buffer.position(buffer.position() + length);
+        }
+        
+        getBoard().check(buffer);
+    }
+    
+    /**
+     * Read the player timer, wins, status messages and board from the buffer.<br>
+     * The board is expected to have the same dimensions as the one that was written
+     * @param buffer Where the player is read from
+     */
+    public void read(final ByteBuffer buffer)
+    {
+        this.wins = buffer.getInt();
+        this.elapsed = buffer.getLong();
+        
+        //restore the timer to the same time
+        getTimer().setReset(buffer.getLong());
+        getTimer().reset();
+        getTimer().update(elapsed);
+        
+        final int count = buffer.get();
+        
+        final List<String> messages = new ArrayList<>(count);
+        
+        for (int i = 0; i < count; i++)
+        {
+            final byte[] bytes = new byte[buffer.getShort()];
+            
+            buffer.get(bytes);
+            
+            messages.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        
+        getStatus().setMessages(messages);
+        
+        getBoard().read(buffer);
+    }
+    
     /**
      * Set the location of the player and the status screen
      * @param x
@@ -308,77 +708,178 @@ public abstract class Player extends Sprite implements Disposable
     }
     
     /**
-     * Draw the board and other info
-     * @param graphics 
+     * Copy everything needed to draw this player into the back frame and publish it for the render thread.<br>
+     * This should be called from the update thread once the player has been updated.
      */
-    public void render(final Graphics graphics)
+    public void publish()
     {
-        //if image does not exist we can't continue
-        if (image == null || super.getImage() == null)
+        if (frames == null)
             return;
         
-        //make sure status object exists
-        if (getStatus() != null)
+        final PlayerFrame frame = frames.getBack();
+        
+        //copy the state of the tiles that have changed since this frame was last published
+        getBoard().copyStates(frame.cells, frame.dirty);
+        
+        //if there is a reset time present we are counting down the time
+        if (getTimer().getReset() != 0)
         {
-            //draw status messages
-            getStatus().render(graphics);
+            frame.seconds = (int)(Math.max(getTimer().getReset() - elapsed, 0) / NANO_SECONDS_PER_SECOND);
+        }
+        else
+        {
+            frame.seconds = (int)(elapsed / NANO_SECONDS_PER_SECOND);
         }
         
-        //get graphics object for image
-        Graphics2D g2d = this.image.createGraphics();
+        frame.mines = getBoard().getRemainingMineCount();
+        frame.lost = getBoard().hasLost();
+        frame.solved = getBoard().hasSolved();
+        frame.mouse.setLocation(getMouseLocation());
+        frame.previous.setLocation(publishedMouse);
+        publishedMouse.setLocation(getMouseLocation());
+        frame.messageCount = getStatus().copy(frame.messages);
+        frame.messageVersion = getStatus().getVersion();
+        frame.inputTime = getBoard().getInputTime();
+        
+        //the mouse may also be drawn outside of the player
+        final Point universal = getUniversalLocation();
+        
+        frame.hasUniversal = (universal != null);
         
-        //set parent font
-        g2d.setFont(graphics.getFont().deriveFont(Font.BOLD, 18f));
+        if (universal != null)
+            frame.universal.setLocation(universal);
+        
+        frames.publish();
+    }
+    
+    /**
+     * The board has changed, every frame will need to copy the changed tiles before it is published again.<br>
+     * This is called from the update thread.
+     * @param board The board that has changed
+     * @param changes The tiles that have changed
+     */
+    @Override
+    public void onChange(final Board board, final ChangeSet changes)
+    {
+        for (PlayerFrame frame : allFrames)
+        {
+            changes.copyTo(frame.dirty);
+        }
+    }
+    
+    /**
+     * Get the location of the mouse relative to the screen
+     * @return The location, null if the mouse is only drawn within the player
+     */
+    protected Point getUniversalLocation()
+    {
+        return null;
+    }
+    
+    /**
+     * Draw the most recently published frame of the board and other info.<br>
+     * This is called from the render thread so only the published frame is used.
+     * @param graphics 
+     * @param interpolation How far we are between the previous and next update, from 0.0 to 1.0
+     */
+    public void render(final Graphics graphics, final float interpolation)
+    {
+        //if image does not exist we can't continue
+        if (image == null || super.getImage() == null || frames == null || atlas == null)
+            return;
+        
+        render(graphics, frames.acquire(), interpolation);
+    }
+    
+    /**
+     * Draw the board and other info
+     * @param graphics
+     * @param frame The published frame to draw
+     * @param interpolation How far we are between the previous and next update, from 0.0 to 1.0
+     */
+    protected void render(final Graphics graphics, final PlayerFrame frame, final float interpolation)
+    {
+        long start = System.nanoTime();
+        
+        //draw status messages
+        getStatus().render(graphics, frame.messages, frame.messageCount, frame.messageVersion);
+        
+        Metrics.record(Metrics.Phase.StatusRender, start);
+        
+        start = System.nanoTime();
+        
+        final Graphics2D g2d = this.imageGraphics;
+        
+        //get the font derived from the parent font
+        final Font hud = font.get(graphics.getFont());
         
         //clear the image so a new one can be drawn
         g2d.clearRect(0, 0, image.getWidth(), image.getHeight());
         
-        if (getTimer() != null)
+        //the timer description is only created again when the seconds change
+        if (frame.seconds != timerSeconds)
         {
-            //if there is a reset time present we are counting down the time
-            if (getTimer().getReset() != 0)
-            {
-                g2d.drawString("Timer: " + timer.getDescRemaining(Timers.FORMAT_6), this.timerLocation.x, this.timerLocation.y);
-            }
-            else
-            {
-                g2d.drawString("Timer: " + timer.getDescPassed(Timers.FORMAT_6), this.timerLocation.x, this.timerLocation.y);
-            }
+            timerSeconds = frame.seconds;
+            timerFormat.reset();
+            timerFormat.update(Timers.toNanoSeconds(timerSeconds * MILLI_SECONDS_PER_SECOND));
+            timerDescription = timerFormat.getDescPassed(Timers.FORMAT_6);
         }
         
-        final int mineCount = getBoard().getMineCount() - getBoard().getFlagCount();
-        
-        if (human)
-            g2d.drawString("Human Mines: " + mineCount, this.infoLocation.x, this.infoLocation.y);
-        else
-            g2d.drawString("CPU Mines: " + mineCount, this.infoLocation.x, this.infoLocation.y);
+        //the text is only drawn again when the value changes
+        timerText.render(g2d, hud, timerDescription, this.timerLocation.x, this.timerLocation.y);
+        minesText.render(g2d, hud, frame.mines, this.infoLocation.x, this.infoLocation.y);
         
         //draw fail icon
-        if (getBoard().hasLost())
+        if (frame.lost)
             drawIcon(g2d, resultLocation, failSource);
         
         //draw win icon
-        if (getBoard().hasSolved())
+        if (frame.solved)
             drawIcon(g2d, resultLocation, successSource);
         
         //draw board to image
-        getBoard().render(g2d, super.getImage());
+        for (int index = 0; index < frame.cells.length; index++)
+        {
+            final int x = BOARD_START_X + ((index % frame.columns) * Original.SPRITE_WIDTH);
+            final int y = BOARD_START_Y + ((index / frame.columns) * Original.SPRITE_HEIGHT);
+            
+            atlas.render(g2d, frame.cells[index], x, y);
+        }
+        
+        if (human)
+        {
+            //the human mouse follows the real mouse so it is drawn where it is
+            renderMouse.setLocation(frame.mouse);
+        }
+        else
+        {
+            //the cpu mouse moves a few pixels each update so draw it in between the previous and current location
+            renderMouse.x = frame.previous.x + Math.round((frame.mouse.x - frame.previous.x) * interpolation);
+            renderMouse.y = frame.previous.y + Math.round((frame.mouse.y - frame.previous.y) * interpolation);
+        }
         
         //draw mouse so we can see
-        if (this.mouseLocation != null)
-            drawMouse(g2d, this.mouseLocation);
+        drawMouse(g2d, renderMouse, frame);
         
         //write image to graphics object
         super.draw(graphics, this.image);
         
-        //release image resources
-        this.image.flush();
+        //this frame is the first to show the tiles changed by an input event
+        if (frame.inputTime != presentedInputTime)
+        {
+            presentedInputTime = frame.inputTime;
+            
+            if (frame.inputTime != 0)
+                Metrics.present(frame.inputTime);
+        }
+        
+        Metrics.record(Metrics.Phase.BoardRender, start);
     }
     
-    protected void drawMouse(final Graphics graphics, final Point d)
+    protected void drawMouse(final Graphics graphics, final Point d, final PlayerFrame frame)
     {
         //only draw the mouse if the game is over
-        if (!hasGameOver())
+        if (!frame.hasGameOver())
         {
             drawIcon((Graphics2D)graphics, d, mouseSource);
         }
@@ -0,0 +1,78 @@
+package com.gamesbykevin.minesweeper.player;
+
+import java.awt.Point;
+import java.util.BitSet;
+
+/**
+ * Everything needed to draw a player.<br>
+ * The update thread fills this in and publishes it, the render thread only ever reads a published frame.
+ * @author GOD
+ */
+final class PlayerFrame
+{
+    //the state ordinal of every cell on the board
+    final byte[] cells;
+    
+    //the number of columns on the board
+    final int columns;
+    
+    //the cells that have changed since this frame was last published, only used by the update thread
+    final BitSet dirty;
+    
+    //the whole seconds shown on the timer, the time remaining if we are counting down
+    int seconds;
+    
+    //the number of mines that haven't been flagged
+    int mines;
+    
+    //has the board been lost/solved
+    boolean lost, solved;
+    
+    //the location of the mouse relative to the player
+    final Point mouse = new Point();
+    
+    //the location of the mouse relative to the player in the previously published frame
+    final Point previous = new Point();
+    
+    //the location of the mouse relative to the screen
+    final Point universal = new Point();
+    
+    //does the universal mouse location exist
+    boolean hasUniversal = false;
+    
+    //the status messages
+    final String[] messages = new String[Status.MESSAGE_LIMIT];
+    
+    //the number of status messages
+    int messageCount;
+    
+    //the version of the status messages, changes every time the messages change
+    int messageVersion;
+    
+    //the time of the input event that last changed a tile, 0 if there hasn't been one
+    long inputTime;
+    
+    /**
+     * Create a new frame
+     * @param columns The number of columns on the board
+     * @param rows The number of rows on the board
+     */
+    PlayerFrame(final int columns, final int rows)
+    {
+        this.columns = columns;
+        this.cells = new byte[columns * rows];
+        
+        //every cell needs to be copied the first time
+        this.dirty = new BitSet(columns * rows);
+        this.dirty.set(0, columns * rows);
+    }
+    
+    /**
+     * Has the game ended for this player
+     * @return true is the has player lost or won, false if still playing
+     */
+    boolean hasGameOver()
+    {
+        return (lost || solved);
+    }
+}
\ No newline at end of file
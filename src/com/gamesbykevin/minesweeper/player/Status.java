@@ -3,29 +3,66 @@ package com.gamesbykevin.minesweeper.player;
 import com.gamesbykevin.framework.base.Sprite;
 import com.gamesbykevin.framework.resources.Disposable;
 
+import com.gamesbykevin.minesweeper.shared.CachedFont;
+
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics;
-import java.text.SimpleDateFormat;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.List;
+import java.util.TimeZone;
 
 public class Status extends Sprite implements Disposable
 {
-    //list of messages
-    private List<String> messages;
-    
     //how many messages to allow in out list
-    private static final int MESSAGE_LIMIT = 4;
+    static final int MESSAGE_LIMIT = 4;
+    
+    //list of messages, once full the oldest message is replaced
+    private String[] messages;
+    
+    //index of the oldest message
+    private int head = 0;
+    
+    //the number of messages
+    private int size = 0;
+    
+    //changes every time the messages change
+    private int version = 0;
     
     //initial startup message
     private static final String INITIAL_MESSAGE = "Game Begin";
     
+    //used to build each message with the time added
+    private final StringBuilder builder = new StringBuilder();
+    
+    //the time zone used to display the time
+    private final TimeZone timeZone = TimeZone.getDefault();
+    
+    //the number of milliseconds in a day
+    private static final long MILLISECONDS_PER_DAY = 24L * 60L * 60L * 1000L;
+    
+    //the messages drawn to an image, only used by the render thread
+    private BufferedImage image;
+    
+    //graphics object used to draw on the image
+    private Graphics2D imageGraphics;
+    
+    //the font and version the image was drawn with
+    private Font imageFont;
+    private int imageVersion = -1;
+    
+    //the font of the messages
+    private final CachedFont font = new CachedFont(Font.PLAIN, 14f);
+    
     public Status()
     {
         super();
         
+        //create the list of messages
+        messages = new String[MESSAGE_LIMIT];
+        
         //add initial message
         add();
     }
@@ -35,8 +72,18 @@ public class Status extends Sprite implements Disposable
     {
         super.dispose();
         
-        messages.clear();
         messages = null;
+        
+        if (imageGraphics != null)
+            imageGraphics.dispose();
+        
+        imageGraphics = null;
+        
+        if (image != null)
+            image.flush();
+        
+        image = null;
+        imageFont = null;
     }
     
     /**
@@ -44,7 +91,14 @@ public class Status extends Sprite implements Disposable
      */
     protected void clear()
     {
-        messages.clear();
+        for (int index = 0; index < messages.length; index++)
+        {
+            messages[index] = null;
+        }
+        
+        head = 0;
+        size = 0;
+        version++;
     }
     
     private void add()
@@ -54,54 +108,184 @@ public class Status extends Sprite implements Disposable
     }
     
     /**
-     * Add status message
+     * Add status message, the current time will be added after the message
      * @param message Message to add
      */
     public void add(final String message)
     {
-        if (messages == null)
+        builder.setLength(0);
+        builder.append(message).append(".   ");
+        
+        appendTime(builder, System.currentTimeMillis());
+        
+        store(builder.toString());
+    }
+    
+    /**
+     * Add the message to the list, if we are at our limit the oldest message is replaced
+     * @param message Message to add
+     */
+    private void store(final String message)
+    {
+        if (size < MESSAGE_LIMIT)
+        {
+            messages[(head + size) % MESSAGE_LIMIT] = message;
+            size++;
+        }
+        else
         {
-            //create new message list
-            messages = new ArrayList<>();
+            //replace the oldest message
+            messages[head] = message;
+            head = (head + 1) % MESSAGE_LIMIT;
         }
         
-        //add message to list and add time after as well
-        messages.add(message + ".   " + new SimpleDateFormat("HH:mm:ss.SSS").format(Calendar.getInstance().getTime()));
+        version++;
+    }
+    
+    /**
+     * Add the time of day as HH:mm:ss.SSS without creating any date/calendar objects
+     * @param builder Where the time is added
+     * @param time Current time in milliseconds
+     */
+    private void appendTime(final StringBuilder builder, final long time)
+    {
+        //milliseconds since midnight in our time zone
+        final long local = (time + timeZone.getOffset(time)) % MILLISECONDS_PER_DAY;
+        
+        append(builder, (int)(local / 3600000L), 2);
+        builder.append(':');
+        append(builder, (int)((local / 60000L) % 60), 2);
+        builder.append(':');
+        append(builder, (int)((local / 1000L) % 60), 2);
+        builder.append('.');
+        append(builder, (int)(local % 1000L), 3);
+    }
+    
+    /**
+     * Add the number with leading zeros
+     * @param builder Where the number is added
+     * @param value The number
+     * @param digits The minimum number of digits
+     */
+    private static void append(final StringBuilder builder, final int value, final int digits)
+    {
+        if (digits > 2 && value < 100)
+            builder.append('0');
+        if (digits > 1 && value < 10)
+            builder.append('0');
         
-        //if we are over our limit we will keep removing the last message until we are within the limit set (just like a stack)
-        while(messages.size() > MESSAGE_LIMIT)
+        builder.append(value);
+    }
+    
+    /**
+     * Get the current messages
+     * @return List of messages, oldest first
+     */
+    public List<String> getMessages()
+    {
+        final List<String> result = new ArrayList<>(size);
+        
+        for (int index = 0; index < size; index++)
         {
-            //remove the first message in the list
-            messages.remove(0);
+            result.add(messages[(head + index) % MESSAGE_LIMIT]);
         }
+        
+        return result;
     }
     
-    public void render(final Graphics graphics)
+    /**
+     * Replace the current messages, no time will be added since the messages already contain one
+     * @param messages List of messages, oldest first
+     */
+    public void setMessages(final List<String> messages)
     {
-        //store temporary font object
-        final Font tmp = graphics.getFont();
+        clear();
+        
+        for (String message : messages)
+        {
+            store(message);
+        }
+    }
+    
+    /**
+     * Get the version of the messages, this changes every time the messages change
+     * @return The version
+     */
+    public int getVersion()
+    {
+        return this.version;
+    }
+    
+    /**
+     * Copy the current messages
+     * @param destination Where the messages are copied to, needs room for the message limit
+     * @return The number of messages copied
+     */
+    public int copy(final String[] destination)
+    {
+        for (int index = 0; index < size; index++)
+        {
+            destination[index] = messages[(head + index) % MESSAGE_LIMIT];
+        }
+        
+        return size;
+    }
+    
+    /**
+     * Draw the specified messages.<br>
+     * The messages are drawn to an image that is only drawn again when the version changes.
+     * @param graphics Graphics object used for drawing
+     * @param messages The messages to draw, oldest first
+     * @param count The number of messages
+     * @param version The version of the messages
+     */
+    public void render(final Graphics graphics, final String[] messages, final int count, final int version)
+    {
+        final Font tmp = font.get(graphics.getFont());
+        
+        if (image == null || tmp != imageFont || version != imageVersion)
+        {
+            update(tmp, messages, count);
+            
+            imageVersion = version;
+        }
+        
+        graphics.drawImage(image, (int)super.getX(), (int)super.getY(), null);
+    }
+    
+    /**
+     * Draw the messages to our image
+     * @param font The font of the messages
+     * @param messages The messages to draw, oldest first
+     * @param count The number of messages
+     */
+    private void update(final Font font, final String[] messages, final int count)
+    {
+        if (image == null)
+        {
+            image = new BufferedImage((int)super.getWidth(), (int)super.getHeight(), BufferedImage.TYPE_INT_RGB);
+            imageGraphics = image.createGraphics();
+        }
         
         //set font size
-        graphics.setFont(graphics.getFont().deriveFont(Font.PLAIN, 14));
+        imageGraphics.setFont(font);
+        imageFont = font;
         
         //get font height
-        final int height = graphics.getFontMetrics().getHeight();
+        final int height = imageGraphics.getFontMetrics().getHeight();
         
-        graphics.setColor(Color.BLACK);
-        graphics.fillRect((int)super.getX(), (int)super.getY(), (int)super.getWidth(), (int)super.getHeight());
+        imageGraphics.setColor(Color.BLACK);
+        imageGraphics.fillRect(0, 0, image.getWidth(), image.getHeight());
         
-        graphics.setColor(Color.WHITE);
+        imageGraphics.setColor(Color.WHITE);
         
-        int y = (int)(super.getY() + 15);
+        int y = 15;
         
-        for (String message : messages)
+        for (int index = 0; index < count; index++)
         {
-            graphics.drawString(message, (int)(super.getX() + 10), y);
+            imageGraphics.drawString(messages[index], 10, y);
             
             y += height;
         }
-        
-        //restore the previous font
-        graphics.setFont(tmp);
     }
 }
\ No newline at end of file
@@ -0,0 +1,492 @@
+package com.gamesbykevin.minesweeper.replay;
+
+import com.gamesbykevin.framework.resources.Disposable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A replay contains everything needed to reproduce a game.<br>
+ * The seed, the board parameters and every board event for each player in the order it happened.
+ * @author GOD
+ */
+public final class Replay implements Disposable
+{
+    //identifies a replay file "MSRP"
+    private static final int MAGIC = 0x4D535250;
+    
+    //the version of the file format, version 2 added the no guess flag, version 3 generates the boards from their own random number generator, version 4 generates each board from its own seed
+    private static final byte VERSION = 4;
+    
+    //initial number of events we have room for
+    private static final int DEFAULT_CAPACITY = 256;
+    
+    /**
+     * The different events that can be recorded
+     */
+    public enum Type
+    {
+        //the left mouse button was pressed
+        Press,
+        
+        //the left mouse button was released
+        Release,
+        
+        //the right mouse button was released
+        RightRelease,
+        
+        //the mouse was dragged
+        Drag,
+        
+        //a new board was generated
+        Reset,
+        
+        //the player ran out of time
+        Lose,
+        
+        //the middle mouse button was released to chord a tile
+        Chord,
+    }
+    
+    //seed used to generate random numbers
+    private final long seed;
+    
+    //the board parameters
+    private final int columns, rows, mines;
+    
+    //were the boards generated so they can be solved without guessing
+    private final boolean noGuess;
+    
+    //the version of the file format this replay was recorded with
+    private int version = VERSION;
+    
+    //where the tiles start so the recorded mouse coordinates line up
+    private final int startX, startY;
+    
+    //the updates per second of the recorded game
+    private final int ups;
+    
+    //the number of players in this game
+    private final int players;
+    
+    //the current update the events are recorded under
+    private int tick = 0;
+    
+    //the number of events recorded
+    private int size = 0;
+    
+    //event data, each index is 1 event
+    private int[] ticks;
+    private byte[] actions;
+    private short[] xs;
+    private short[] ys;
+    
+    /**
+     * Create a new empty replay
+     * @param seed Seed used to generate random numbers
+     * @param columns Board columns
+     * @param rows Board rows
+     * @param mines Board mine count
+     * @param noGuess Are the boards generated so they can be solved without guessing
+     * @param startX Starting x coordinate of the tiles
+     * @param startY Starting y coordinate of the tiles
+     * @param ups Updates per second
+     * @param players Number of players
+     */
+    public Replay(final long seed, final int columns, final int rows, final int mines, final boolean noGuess, final int startX, final int startY, final int ups, final int players)
+    {
+        this.seed = seed;
+        this.columns = columns;
+        this.rows = rows;
+        this.mines = mines;
+        this.noGuess = noGuess;
+        this.startX = startX;
+        this.startY = startY;
+        this.ups = ups;
+        this.players = players;
+        
+        this.ticks = new int[DEFAULT_CAPACITY];
+        this.actions = new byte[DEFAULT_CAPACITY];
+        this.xs = new short[DEFAULT_CAPACITY];
+        this.ys = new short[DEFAULT_CAPACITY];
+    }
+    
+    @Override
+    public void dispose()
+    {
+        ticks = null;
+        actions = null;
+        xs = null;
+        ys = null;
+    }
+    
+    /**
+     * Create the random number generator used by the board of the specified player.<br>
+     * Each player has its own so the boards can be reproduced regardless of what the other player does.
+     * @param seed The seed of the game
+     * @param player The index of the player
+     * @return Random
+     */
+    public static Random createRandom(final long seed, final int player)
+    {
+        return new Random(seed + player);
+    }
+    
+    /**
+     * Create the random number generator the mine layouts of the specified player were generated from in version 3.<br>
+     * The layouts are generated ahead of time so they need their own separate from the one used while playing.
+     * @param seed The seed of the game
+     * @param player The index of the player
+     * @return Random
+     */
+    public static Random createLayoutRandom(final long seed, final int player)
+    {
+        return new Random(~seed + player);
+    }
+    
+    /**
+     * Create the seed the mine layouts of the specified player are generated from.<br>
+     * Each layout gets its own seed made from this one, so the boards don't depend on the order they were generated in.
+     * @param seed The seed of the game
+     * @param player The index of the player
+     * @return The seed of the layouts
+     */
+    public static long createLayoutSeed(final long seed, final int player)
+    {
+        return ~seed + player;
+    }
+    
+    /**
+     * Get the version of the file format this replay was recorded with.<br>
+     * Before version 3 the boards were generated from the same random number generator used while playing.<br>
+     * Before version 4 the boards were generated in order from a random number generator of their own.
+     * @return The version
+     */
+    public int getVersion()
+    {
+        return this.version;
+    }
+    
+    /**
+     * Move on to the next update, any events added will be recorded under this update
+     */
+    public void tick()
+    {
+        this.tick++;
+    }
+    
+    /**
+     * Add an event that does not have a location
+     * @param player The index of the player
+     * @param type The type of event
+     */
+    public void add(final int player, final Type type)
+    {
+        add(player, type, 0, 0);
+    }
+    
+    /**
+     * Add an event
+     * @param player The index of the player
+     * @param type The type of event
+     * @param x x-coordinate of the mouse
+     * @param y y-coordinate of the mouse
+     */
+    public void add(final int player, final Type type, final int x, final int y)
+    {
+        //make sure we have room
+        if (size == ticks.length)
+        {
+            final int capacity = size * 2;
+            
+            ticks = Arrays.copyOf(ticks, capacity);
+            actions = Arrays.copyOf(actions, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+        }
+        
+        ticks[size] = tick;
+        actions[size] = (byte)((player << 4) | type.ordinal());
+        xs[size] = (short)x;
+        ys[size] = (short)y;
+        
+        size++;
+    }
+    
+    public long getSeed()
+    {
+        return this.seed;
+    }
+    
+    public int getColumnCount()
+    {
+        return this.columns;
+    }
+    
+    public int getRowCount()
+    {
+        return this.rows;
+    }
+    
+    public int getMineCount()
+    {
+        return this.mines;
+    }
+    
+    /**
+     * Were the boards generated so they can be solved without guessing
+     * @return true if so, false otherwise
+     */
+    public boolean hasNoGuess()
+    {
+        return this.noGuess;
+    }
+    
+    public int getStartX()
+    {
+        return this.startX;
+    }
+    
+    public int getStartY()
+    {
+        return this.startY;
+    }
+    
+    public int getUps()
+    {
+        return this.ups;
+    }
+    
+    public int getPlayerCount()
+    {
+        return this.players;
+    }
+    
+    /**
+     * Get the number of events recorded
+     * @return Event count
+     */
+    public int getSize()
+    {
+        return this.size;
+    }
+    
+    /**
+     * Get the update the event happened in
+     * @param index Index of the event
+     * @return The update number
+     */
+    public int getTick(final int index)
+    {
+        return ticks[index];
+    }
+    
+    public int getPlayer(final int index)
+    {
+        return (actions[index] >> 4);
+    }
+    
+    public Type getType(final int index)
+    {
+        return Type.values()[actions[index] & 0x0F];
+    }
+    
+    public int getX(final int index)
+    {
+        return xs[index];
+    }
+    
+    public int getY(final int index)
+    {
+        return ys[index];
+    }
+    
+    /**
+     * Does this event type have a mouse location
+     * @param type The type of event
+     * @return true if x,y is recorded, false otherwise
+     */
+    private static boolean hasLocation(final Type type)
+    {
+        switch (type)
+        {
+            case Reset:
+            case Lose:
+                return false;
+            
+            default:
+                return true;
+        }
+    }
+    
+    /**
+     * Write the replay to the specified file
+     * @param file Destination
+     * @throws IOException
+     */
+    public void save(final File file) throws IOException
+    {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file)))
+        {
+            write(out);
+        }
+    }
+    
+    /**
+     * Read the replay from the specified file
+     * @param file Source
+     * @return Replay
+     * @throws IOException
+     */
+    public static Replay load(final File file) throws IOException
+    {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file)))
+        {
+            return read(in);
+        }
+    }
+    
+    /**
+     * Write the replay.<br>
+     * The update of each event is stored as the difference from the previous event so most events only take a few bytes.
+     * @param out Stream to write to
+     * @throws IOException
+     */
+    public void write(final OutputStream out) throws IOException
+    {
+        final DataOutputStream data = new DataOutputStream(out);
+        
+        //header, written in the version this replay was recorded with so the boards are generated the same way when loaded again
+        data.writeInt(MAGIC);
+        data.writeByte(version);
+        data.writeLong(seed);
+        data.writeShort(columns);
+        data.writeShort(rows);
+        data.writeInt(mines);
+        
+        //version 1 has no no guess flag
+        if (version >= 2)
+            data.writeBoolean(noGuess);
+        
+        data.writeShort(startX);
+        data.writeShort(startY);
+        data.writeShort(ups);
+        data.writeByte(players);
+        data.writeInt(size);
+        
+        int previous = 0;
+        
+        for (int index = 0; index < size; index++)
+        {
+            writeVarInt(data, ticks[index] - previous);
+            data.writeByte(actions[index]);
+            
+            if (hasLocation(getType(index)))
+            {
+                data.writeShort(xs[index]);
+                data.writeShort(ys[index]);
+            }
+            
+            previous = ticks[index];
+        }
+        
+        data.flush();
+    }
+    
+    /**
+     * Read a replay
+     * @param in Stream to read from
+     * @return Replay
+     * @throws IOException If the stream is not a replay or the version is unknown
+     */
+    public static Replay read(final InputStream in) throws IOException
+    {
+        final DataInputStream data = new DataInputStream(in);
+        
+        if (data.readInt() != MAGIC)
+            throw new IOException("Not a replay file.");
+        
+        final byte version = data.readByte();
+        
+        if (version < 1 || version > VERSION)
+            throw new IOException("Unknown replay version found (" + version + ").");
+        
+        final long seed = data.readLong();
+        final int columns = data.readShort();
+        final int rows = data.readShort();
+        final int mines = data.readInt();
+        final boolean noGuess = (version >= 2) ? data.readBoolean() : false;
+        final int startX = data.readShort();
+        final int startY = data.readShort();
+        final int ups = data.readShort();
+        final int players = data.readByte();
+        final int count = data.readInt();
+        
+        final Replay replay = new Replay(seed, columns, rows, mines, noGuess, startX, startY, ups, players);
+        replay.version = version;
+        
+        final Type[] types = Type.values();
+        
+        for (int index = 0; index < count; index++)
+        {
+            replay.tick += readVarInt(data);
+            
+            final byte action = data.readByte();
+            
+            if ((action & 0x0F) >= types.length)
+                throw new IOException("Unknown replay event found (" + (action & 0x0F) + ").");
+            
+            final Type type = types[action & 0x0F];
+            
+            if (hasLocation(type))
+            {
+                replay.add(action >> 4, type, data.readShort(), data.readShort());
+            }
+            else
+            {
+                replay.add(action >> 4, type);
+            }
+        }
+        
+        return replay;
+    }
+    
+    private static void writeVarInt(final DataOutputStream data, int value) throws IOException
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            data.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        
+        data.writeByte(value);
+    }
+    
+    private static int readVarInt(final DataInputStream data) throws IOException
+    {
+        int value = 0;
+        int shift = 0;
+        
+        while (true)
+        {
+            final int b = data.readUnsignedByte();
+            
+            value |= (b & 0x7F) << shift;
+            
+            if ((b & 0x80) == 0)
+                return value;
+            
+            shift += 7;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,227 @@
+package com.gamesbykevin.minesweeper.replay;
+
+import com.gamesbykevin.framework.resources.Disposable;
+
+import com.gamesbykevin.minesweeper.board.Board;
+import com.gamesbykevin.minesweeper.board.BoardFactory;
+
+import java.awt.Point;
+import java.io.File;
+import java.util.Random;
+
+/**
+ * This class will play back a recorded game without a window as fast as possible.<br>
+ * Useful to reproduce a bug or to profile a slow game offline.
+ * @author GOD
+ */
+public final class Replayer implements Disposable
+{
+    //the recorded game
+    private Replay replay;
+    
+    //the board of each player
+    private Board[] boards;
+    
+    //the object used for the random decisions of each board
+    private Random[] randoms;
+    
+    //generates the mine layouts of each board, null for random boards recorded before the boards had their own
+    private BoardFactory[] factories;
+    
+    //reuse this object for the mouse location
+    private final Point point;
+    
+    //how long it took to play back the events
+    private long duration;
+    
+    /**
+     * Create a new replayer
+     * @param replay The recorded game to play back
+     */
+    public Replayer(final Replay replay)
+    {
+        this.replay = replay;
+        this.point = new Point();
+    }
+    
+    @Override
+    public void dispose()
+    {
+        if (boards != null)
+        {
+            for (Board board : boards)
+            {
+                board.dispose();
+            }
+        }
+        
+        if (factories != null)
+        {
+            for (BoardFactory factory : factories)
+            {
+                factory.dispose();
+            }
+        }
+        
+        factories = null;
+        boards = null;
+        randoms = null;
+        replay = null;
+    }
+    
+    /**
+     * Play back every event in the replay.<br>
+     * The boards are created the same way the game created them so the result will be identical.
+     * @throws Exception
+     */
+    public void run() throws Exception
+    {
+        final long start = System.nanoTime();
+        
+        boards = new Board[replay.getPlayerCount()];
+        randoms = new Random[replay.getPlayerCount()];
+        
+        //the layouts are generated the same way the game generated them
+        if (replay.getVersion() >= 3 || replay.hasNoGuess())
+            factories = new BoardFactory[replay.getPlayerCount()];
+        
+        for (int player = 0; player < boards.length; player++)
+        {
+            randoms[player] = Replay.createRandom(replay.getSeed(), player);
+            
+            boards[player] = new Board(replay.getColumnCount(), replay.getRowCount(), replay.getMineCount());
+            
+            if (factories != null)
+            {
+                if (replay.getVersion() >= 4)
+                {
+                    factories[player] = new BoardFactory(replay.getColumnCount(), replay.getRowCount(), replay.getMineCount(), replay.hasNoGuess(), Replay.createLayoutSeed(replay.getSeed(), player));
+                }
+                else
+                {
+                    //before version 4 the layouts were drawn in order, before version 3 from the same random number generator as the rest of the board
+                    final Random random = (replay.getVersion() >= 3) ? Replay.createLayoutRandom(replay.getSeed(), player) : randoms[player];
+                    
+                    factories[player] = new BoardFactory(replay.getColumnCount(), replay.getRowCount(), replay.getMineCount(), replay.hasNoGuess(), random);
+                }
+                
+                boards[player].setStartTile(factories[player].getStart());
+            }
+            
+            reset(player);
+        }
+        
+        for (int index = 0; index < replay.getSize(); index++)
+        {
+            final Board board = boards[replay.getPlayer(index)];
+            
+            point.setLocation(replay.getX(index), replay.getY(index));
+            
+            switch (replay.getType(index))
+            {
+                case Press:
+                    board.updatePressed(point);
+                    break;
+                
+                case Drag:
+                    board.updateDragged(point);
+                    break;
+                
+                case Release:
+                    board.updateReleased(point, null, randoms[replay.getPlayer(index)]);
+                    break;
+                
+                case RightRelease:
+                    board.updateRightReleased(point, null);
+                    break;
+                
+                case Chord:
+                    board.updateChord(point, null);
+                    break;
+                
+                case Reset:
+                    reset(replay.getPlayer(index));
+                    break;
+                
+                case Lose:
+                    board.setLose();
+                    break;
+                
+                default:
+                    throw new Exception("Unknown event found.");
+            }
+        }
+        
+        this.duration = System.nanoTime() - start;
+    }
+    
+    /**
+     * Generate a new board for the player
+     * @param player The index of the player
+     */
+    private void reset(final int player)
+    {
+        if (factories != null)
+        {
+            boards[player].reset(factories[player].take());
+        }
+        else
+        {
+            boards[player].reset(randoms[player]);
+        }
+        
+        boards[player].setLocations(replay.getStartX(), replay.getStartY());
+    }
+    
+    /**
+     * Get the board of the specified player, only available after running
+     * @param player The index of the player
+     * @return Board
+     */
+    public Board getBoard(final int player)
+    {
+        return boards[player];
+    }
+    
+    /**
+     * How long did it take to play back the events
+     * @return Duration in nanoseconds
+     */
+    public long getDuration()
+    {
+        return this.duration;
+    }
+    
+    /**
+     * Play back each of the specified replay files and display the results
+     * @param args List of replay files
+     */
+    public static void main(String[] args)
+    {
+        for (String arg : args)
+        {
+            try
+            {
+                final Replay replay = Replay.load(new File(arg));
+                
+                final Replayer replayer = new Replayer(replay);
+                replayer.run();
+                
+                System.out.println(arg + " - seed " + replay.getSeed() + ", " + replay.getSize() + " events, " + (replayer.getDuration() / 1000) + " microseconds");
+                
+                for (int player = 0; player < replay.getPlayerCount(); player++)
+                {
+                    final Board board = replayer.getBoard(player);
+                    
+                    System.out.println("    Player " + player + " - solved: " + board.hasSolved() + ", lost: " + board.hasLost());
+                }
+                
+                replayer.dispose();
+            }
+            catch (Exception e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+}
\ No newline at end of file
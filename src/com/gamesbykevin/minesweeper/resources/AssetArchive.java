@@ -0,0 +1,280 @@
+package com.gamesbykevin.minesweeper.resources;
+
+import com.gamesbykevin.framework.resources.Disposable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+
+/**
+ * All of the assets packed into a single indexed file that is memory mapped.<br>
+ * Each asset is returned as a slice of the mapped file so nothing is copied or opened separately.<br>
+ * When the file can't be found (applet) the copy inside the jar is read into memory once instead.<br>
+ * The archive is created with AssetPacker when the project is built.
+ * @author GOD
+ */
+public final class AssetArchive implements Disposable
+{
+    //identifies an archive file "MSAR"
+    static final int MAGIC = 0x4D534152;
+    
+    //the version of the file format
+    static final byte VERSION = 1;
+    
+    //the name of the archive file
+    public static final String FILE_NAME = "resources.pak";
+    
+    //the whole archive
+    private ByteBuffer buffer;
+    
+    //the location/size of each asset, the key is the path of the asset
+    private HashMap<String, int[]> entries;
+    
+    /**
+     * Map the archive and read the index
+     * @param file The archive
+     * @throws Exception If the file is not an archive or the version is unknown
+     */
+    public AssetArchive(final File file) throws Exception
+    {
+        this(map(file));
+    }
+    
+    /**
+     * Read the index of the archive
+     * @param buffer The whole archive
+     * @throws Exception If the buffer is not an archive or the version is unknown
+     */
+    public AssetArchive(final ByteBuffer buffer) throws Exception
+    {
+        this.buffer = buffer;
+        
+        if (buffer.getInt() != MAGIC)
+            throw new Exception("Not an asset archive.");
+        
+        final byte version = buffer.get();
+        
+        if (version != VERSION)
+            throw new Exception("Unknown asset archive version found (" + version + ").");
+        
+        final int count = buffer.getInt();
+        
+        this.entries = new HashMap<>(count * 2);
+        
+        for (int index = 0; index < count; index++)
+        {
+            final byte[] path = new byte[buffer.getShort()];
+            
+            buffer.get(path);
+            
+            final int offset = buffer.getInt();
+            final int length = buffer.getInt();
+            
+            entries.put(new String(path, StandardCharsets.UTF_8), new int[] { offset, length });
+        }
+    }
+    
+    @Override
+    public void dispose()
+    {
+        buffer = null;
+        
+        if (entries != null)
+            entries.clear();
+        
+        entries = null;
+    }
+    
+    /**
+     * Map the whole file
+     * @param file The archive
+     * @return The mapped file
+     * @throws IOException 
+     */
+    private static ByteBuffer map(final File file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            //the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+    
+    /**
+     * Open the archive.<br>
+     * The file is memory mapped if it can be found, otherwise the copy in the jar is read once (applet).
+     * @param source Class in root directory of project
+     * @param directory The data directory
+     * @return The archive, null if the build didn't create one
+     * @throws Exception If the archive can't be read
+     */
+    public static AssetArchive open(final Class source, final String directory) throws Exception
+    {
+        final File file = locate(source, directory);
+        
+        if (file != null)
+            return new AssetArchive(file);
+        
+        final URL url = source.getResource(Resources.RESOURCE_DIR + FILE_NAME);
+        
+        if (url == null)
+            return null;
+        
+        final URLConnection connection = url.openConnection();
+        
+        final int length = connection.getContentLength();
+        
+        if (length < 0)
+            throw new Exception("Asset archive size is unknown.");
+        
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+        
+        try (ReadableByteChannel channel = Channels.newChannel(connection.getInputStream()))
+        {
+            while (buffer.hasRemaining())
+            {
+                if (channel.read(buffer) < 0)
+                    throw new Exception("Asset archive is incomplete.");
+            }
+        }
+        
+        buffer.flip();
+        
+        return new AssetArchive(buffer);
+    }
+    
+    /**
+     * Locate the archive, first next to the game classes and then in the data directory
+     * @param source Class in root directory of project
+     * @param directory The data directory
+     * @return The archive file, null if there isn't one
+     */
+    public static File locate(final Class source, final String directory)
+    {
+        try
+        {
+            final File code = new File(source.getProtectionDomain().getCodeSource().getLocation().toURI());
+            
+            //the code is either a jar or the classes directory
+            final File file = new File(code.isDirectory() ? code : code.getParentFile(), FILE_NAME);
+            
+            if (file.isFile())
+                return file;
+        }
+        catch (Exception e)
+        {
+            //we may not be allowed to see where the code is (applet), check the data directory
+        }
+        
+        final File file = new File(directory, FILE_NAME);
+        
+        return (file.isFile()) ? file : null;
+    }
+    
+    /**
+     * Is the asset in the archive
+     * @param path The path of the asset, for example "resources/audio/game/sound/0.wav"
+     * @return true if the asset exists, false otherwise
+     */
+    public boolean has(final String path)
+    {
+        return entries.containsKey(path);
+    }
+    
+    /**
+     * Get the asset
+     * @param path The path of the asset
+     * @return A read only slice of the archive containing the asset, null if the asset does not exist
+     */
+    public ByteBuffer get(final String path)
+    {
+        final int[] entry = entries.get(path);
+        
+        if (entry == null)
+            return null;
+        
+        final ByteBuffer slice = buffer.duplicate();
+        
+        slice.position(entry[0]);
+        slice.limit(entry[0] + entry[1]);
+        
+        return slice.slice();
+    }
+    
+    /**
+     * Get a stream that reads the asset directly from the archive
+     * @param path The path of the asset
+     * @return InputStream, null if the asset does not exist
+     */
+    public InputStream openStream(final String path)
+    {
+        final ByteBuffer slice = get(path);
+        
+        return (slice != null) ? new BufferStream(slice) : null;
+    }
+    
+    /**
+     * Reads the bytes of a buffer without copying the buffer
+     */
+    private static final class BufferStream extends InputStream
+    {
+        private final ByteBuffer buffer;
+        
+        private BufferStream(final ByteBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+        
+        @Override
+        public int read()
+        {
+            return (buffer.hasRemaining()) ? (buffer.get() & 0xFF) : -1;
+        }
+        
+        @Override
+        public int read(final byte[] bytes, final int offset, final int length)
+        {
+            if (!buffer.hasRemaining())
+                return -1;
+            
+            final int count = Math.min(length, buffer.remaining());
+            
+            buffer.get(bytes, offset, count);
+            
+            return count;
+        }
+        
+        @Override
+        public int available()
+        {
+            return buffer.remaining();
+        }
+        
+        @Override
+        public boolean markSupported()
+        {
+            return true;
+        }
+        
+        @Override
+        public synchronized void mark(final int limit)
+        {
+            buffer.mark();
+        }
+        
+        @Override
+        public synchronized void reset() throws IOException
+        {
+            buffer.reset();
+        }
+    }
+}
\ No newline at end of file
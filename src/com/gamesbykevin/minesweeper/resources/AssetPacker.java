@@ -0,0 +1,136 @@
+package com.gamesbykevin.minesweeper.resources;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Packs the assets that are read from an AssetArchive into a single file.<br>
+ * Only the directories the game actually reads from the archive are packed, the menu audio and text are loaded from the class path by the framework.<br>
+ * This is run by the build after the project is packaged.
+ * @author GOD
+ */
+public final class AssetPacker
+{
+    //the directories that are packed, relative to the resources directory
+    private static final String[] PACKED = { "audio/game", "font", "images" };
+    
+    private AssetPacker()
+    {
+        //static methods only
+    }
+    
+    /**
+     * Write the archive
+     * @param directory The resources directory, every path will start with the name of this directory
+     * @param destination The archive file
+     * @throws IOException 
+     */
+    public static void pack(final File directory, final File destination) throws IOException
+    {
+        final List<File> files = new ArrayList<>();
+        final List<String> paths = new ArrayList<>();
+        
+        for (String packed : PACKED)
+        {
+            find(new File(directory, packed), directory.getName() + "/" + packed, files, paths);
+        }
+        
+        final byte[][] names = new byte[paths.size()][];
+        
+        //the size of the header and index
+        int offset = 4 + 1 + 4;
+        
+        for (int index = 0; index < paths.size(); index++)
+        {
+            names[index] = paths.get(index).getBytes(StandardCharsets.UTF_8);
+            
+            offset += 2 + names[index].length + 4 + 4;
+        }
+        
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(destination))))
+        {
+            out.writeInt(AssetArchive.MAGIC);
+            out.writeByte(AssetArchive.VERSION);
+            out.writeInt(files.size());
+            
+            //write the index, the data follows in the same order
+            for (int index = 0; index < files.size(); index++)
+            {
+                final int length = (int)files.get(index).length();
+                
+                out.writeShort(names[index].length);
+                out.write(names[index]);
+                out.writeInt(offset);
+                out.writeInt(length);
+                
+                offset += length;
+            }
+            
+            for (File file : files)
+            {
+                out.write(Files.readAllBytes(file.toPath()));
+            }
+        }
+    }
+    
+    /**
+     * Add every file in the directory, sorted so the archive is the same every build
+     * @param directory The directory to search
+     * @param path The path of the directory in the archive
+     * @param files Where the files are added
+     * @param paths Where the path of each file is added
+     */
+    private static void find(final File directory, final String path, final List<File> files, final List<String> paths)
+    {
+        final File[] children = directory.listFiles();
+        
+        if (children == null)
+            return;
+        
+        Arrays.sort(children);
+        
+        for (File child : children)
+        {
+            if (child.isDirectory())
+            {
+                find(child, path + "/" + child.getName(), files, paths);
+            }
+            else
+            {
+                files.add(child);
+                paths.add(path + "/" + child.getName());
+            }
+        }
+    }
+    
+    /**
+     * Pack the resources
+     * @param args The directory to pack and the archive file
+     */
+    public static void main(String[] args)
+    {
+        if (args.length != 2)
+        {
+            System.out.println("Usage: AssetPacker <resources directory> <archive file>");
+            return;
+        }
+        
+        try
+        {
+            pack(new File(args[0]), new File(args[1]));
+        }
+        catch (Exception e)
+        {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
\ No newline at end of file
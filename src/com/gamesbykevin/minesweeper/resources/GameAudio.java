@@ -2,20 +2,33 @@ package com.gamesbykevin.minesweeper.resources;
 
 import static com.gamesbykevin.minesweeper.resources.Resources.RESOURCE_DIR;
 
-import com.gamesbykevin.framework.resources.*;
+import com.gamesbykevin.framework.resources.Disposable;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.text.MessageFormat;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Clip;
 
 /**
- * All audio for game
+ * All audio for game.<br>
+ * Each sound is only decoded the first time it is played, then a few clips are opened so the same sound can overlap.<br>
+ * Decoding and playing happen on a separate thread so the update thread never waits on the audio.
  * @author GOD
  */
-public class GameAudio extends AudioManager
+public class GameAudio implements Disposable
 {
     //location of resources
     private static final String DIRECTORY = "audio/game/sound/{0}.wav";
     
-    //description for progress bar
-    private static final String DESCRIPTION = "Loading Game Audio Resources";
-    
     public enum Keys
     {
         //sound when a new game starts
@@ -40,11 +53,296 @@ public class GameAudio extends AudioManager
         FlagTile,
     }
     
-    public GameAudio() throws Exception
+    //the number of clips opened for each sound so the same sound can be played more than once at a time
+    private static final int POOL_SIZE = 3;
+    
+    //the same sound will not be played again within this many nanoseconds (40 milliseconds)
+    private static final long MINIMUM_INTERVAL = 40000000L;
+    
+    //the clips of each sound, only used by the audio thread
+    private final Clip[][] clips = new Clip[Keys.values().length][];
+    
+    //the index of the next clip to play for each sound, only used by the audio thread
+    private final int[] next = new int[Keys.values().length];
+    
+    //the last time each sound was played, only used by the update thread
+    private final long[] played = new long[Keys.values().length];
+    
+    //has each sound been played at least once
+    private final boolean[] started = new boolean[Keys.values().length];
+    
+    //the thread that decodes and plays the audio
+    private ExecutorService worker;
+    
+    //is the audio enabled
+    private volatile boolean enabled = true;
+    
+    //class in the root directory of the project used to locate the audio
+    private volatile Class source;
+    
+    //the packed assets, null if the audio is loose files
+    private volatile AssetArchive archive;
+    
+    public GameAudio()
+    {
+        this.worker = Executors.newSingleThreadExecutor(new ThreadFactory()
+        {
+            @Override
+            public Thread newThread(final Runnable runnable)
+            {
+                final Thread thread = new Thread(runnable, "Audio");
+                
+                //don't keep the application alive because of this thread
+                thread.setDaemon(true);
+                
+                return thread;
+            }
+        });
+    }
+    
+    @Override
+    public void dispose()
+    {
+        if (worker == null)
+            return;
+        
+        //close the clips on the audio thread after anything still waiting to play
+        worker.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                for (int index = 0; index < clips.length; index++)
+                {
+                    if (clips[index] != null)
+                    {
+                        for (Clip clip : clips[index])
+                        {
+                            clip.close();
+                        }
+                    }
+                    
+                    clips[index] = null;
+                }
+            }
+        });
+        
+        worker.shutdown();
+        worker = null;
+    }
+    
+    /**
+     * Set the class used to locate the audio files
+     * @param source Class in root directory of project
+     */
+    public void setSource(final Class source)
+    {
+        this.source = source;
+    }
+    
+    /**
+     * Set the archive the audio will be read from
+     * @param archive The packed assets, null to read the audio from the class path
+     */
+    public void setArchive(final AssetArchive archive)
+    {
+        this.archive = archive;
+    }
+    
+    public boolean isEnabled()
+    {
+        return this.enabled;
+    }
+    
+    /**
+     * Set the audio enabled/disabled, if disabled play() will do nothing
+     * @param enabled Is the audio enabled
+     */
+    public void setEnabled(final boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+    
+    /**
+     * Play the sound.<br>
+     * If the same sound was just played this is ignored, so a flood of identical sounds is heard once.
+     * @param key The sound to play
+     * @param loop Do we want the sound to loop
+     */
+    public void play(final Keys key, final boolean loop)
+    {
+        if (!isEnabled() || worker == null)
+            return;
+        
+        final long now = System.nanoTime();
+        
+        //if this sound was just played don't play it again
+        if (started[key.ordinal()] && now - played[key.ordinal()] < MINIMUM_INTERVAL)
+            return;
+        
+        started[key.ordinal()] = true;
+        played[key.ordinal()] = now;
+        
+        worker.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    start(key, loop);
+                }
+                catch (Exception e)
+                {
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+    
+    /**
+     * Stop the sound, every clip of the sound is stopped
+     * @param key The sound to stop
+     */
+    public void stop(final Keys key)
+    {
+        if (worker == null)
+            return;
+        
+        worker.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                stopClips(key.ordinal());
+            }
+        });
+    }
+    
+    /**
+     * Stop all sounds
+     */
+    public void stopAll()
+    {
+        if (worker == null)
+            return;
+        
+        worker.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                for (int index = 0; index < clips.length; index++)
+                {
+                    stopClips(index);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Stop every clip of the sound, called from the audio thread
+     * @param index The ordinal of the sound
+     */
+    private void stopClips(final int index)
+    {
+        if (clips[index] == null)
+            return;
+        
+        for (Clip clip : clips[index])
+        {
+            clip.stop();
+        }
+    }
+    
+    /**
+     * Start playing the next clip of the sound, called from the audio thread
+     * @param key The sound to play
+     * @param loop Do we want the sound to loop
+     * @throws Exception 
+     */
+    private void start(final Keys key, final boolean loop) throws Exception
     {
-        super(RESOURCE_DIR + DIRECTORY, Keys.values());
+        //decode the sound the first time it is played
+        if (clips[key.ordinal()] == null)
+            clips[key.ordinal()] = open(key);
+        
+        final Clip[] pool = clips[key.ordinal()];
+        
+        //use the clips in turn so the one playing the longest is reused
+        final Clip clip = pool[next[key.ordinal()]];
+        
+        next[key.ordinal()] = (next[key.ordinal()] + 1) % pool.length;
+        
+        if (clip.isRunning())
+            clip.stop();
+        
+        clip.setFramePosition(0);
+        
+        if (loop)
+        {
+            clip.loop(Clip.LOOP_CONTINUOUSLY);
+        }
+        else
+        {
+            clip.start();
+        }
+    }
+    
+    /**
+     * Decode the sound and open the clips that will play it
+     * @param key The sound
+     * @return The clips
+     * @throws Exception If the sound can't be found or decoded
+     */
+    private Clip[] open(final Keys key) throws Exception
+    {
+        final String location = MessageFormat.format(RESOURCE_DIR + DIRECTORY, key.ordinal());
+        
+        final AssetArchive assets = archive;
+        
+        //read straight from the mapped archive if the audio was packed
+        InputStream raw = (assets != null) ? assets.openStream(location) : null;
+        
+        if (raw == null)
+        {
+            final URL url = (source != null) ? source.getResource(location) : GameAudio.class.getClassLoader().getResource(location);
+            
+            if (url == null)
+                throw new Exception("Audio not found: " + location);
+            
+            raw = new BufferedInputStream(url.openStream());
+        }
+        
+        final AudioFormat format;
+        final byte[] data;
+        
+        try (InputStream in = raw; AudioInputStream stream = AudioSystem.getAudioInputStream(in))
+        {
+            format = stream.getFormat();
+            
+            //decode the whole sound once, every clip shares the data
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            
+            int count;
+            
+            while ((count = stream.read(buffer)) > 0)
+            {
+                out.write(buffer, 0, count);
+            }
+            
+            data = out.toByteArray();
+        }
+        
+        final Clip[] pool = new Clip[POOL_SIZE];
+        
+        for (int index = 0; index < pool.length; index++)
+        {
+            pool[index] = AudioSystem.getClip();
+            pool[index].open(format, data, 0, data.length);
+        }
         
-        //the description that will be displayed for the progress bar
-        super.setDescription(DESCRIPTION);
+        return pool;
     }
 }
\ No newline at end of file
@@ -12,6 +12,9 @@ public class GameImage extends ImageManager
     //location of resources
     private static final String DIRECTORY = "images/game/{0}.png";
     
+    //the path of each resource in the class path and the packed archive, {0} is the index of the key
+    static final String LOCATION = RESOURCE_DIR + DIRECTORY;
+    
     //description for progress bar
     private static final String DESCRIPTION = "Loading Game Image Resources";
     
@@ -22,7 +25,7 @@ public class GameImage extends ImageManager
     
     public GameImage() throws Exception
     {
-        super(RESOURCE_DIR + DIRECTORY, Keys.values());
+        super(LOCATION, Keys.values());
         
         //the description that will be displayed for the progress bar
         super.setDescription(DESCRIPTION);
@@ -12,6 +12,9 @@ public class MenuImage extends ImageManager
     //location of resources
     private static final String DIRECTORY = "images/menu/{0}.gif";
     
+    //the path of each resource in the class path and the packed archive, {0} is the index of the key
+    static final String LOCATION = RESOURCE_DIR + DIRECTORY;
+    
     //description for progress bar
     private static final String DESCRIPTION = "Loading Menu Image Resources";
     
@@ -30,7 +33,7 @@ public class MenuImage extends ImageManager
     
     public MenuImage() throws Exception
     {
-        super(RESOURCE_DIR + DIRECTORY, Keys.values());
+        super(LOCATION, Keys.values());
         
         //the description that will be displayed for the progress bar
         super.setDescription(DESCRIPTION);
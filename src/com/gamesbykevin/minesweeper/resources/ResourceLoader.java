@@ -0,0 +1,136 @@
+package com.gamesbykevin.minesweeper.resources;
+
+import com.gamesbykevin.framework.resources.Disposable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the resource loading tasks in parallel and keeps track of the overall progress.<br>
+ * Each task loads one resource manager, so loading only takes as long as the slowest manager.
+ * @author GOD
+ */
+public final class ResourceLoader implements Disposable
+{
+    //the threads that load the resources
+    private ExecutorService executor;
+    
+    //the tasks submitted
+    private List<Future<Void>> tasks;
+    
+    //the number of resources expected to be loaded
+    private final int total;
+    
+    //the number of resources loaded so far
+    private final AtomicInteger completed = new AtomicInteger();
+    
+    /**
+     * Create a new loader
+     * @param total The number of resources expected to be loaded
+     * @param threads The number of tasks that will be submitted
+     */
+    public ResourceLoader(final int total, final int threads)
+    {
+        this.total = total;
+        this.tasks = new ArrayList<>();
+        
+        //never create more threads than we can run at once
+        final int count = Math.max(1, Math.min(threads, Runtime.getRuntime().availableProcessors()));
+        
+        this.executor = Executors.newFixedThreadPool(count, new ThreadFactory()
+        {
+            //the number of threads created
+            private final AtomicInteger index = new AtomicInteger();
+            
+            @Override
+            public Thread newThread(final Runnable runnable)
+            {
+                final Thread thread = new Thread(runnable, "Resources-" + index.incrementAndGet());
+                
+                //don't keep the application alive because of this thread
+                thread.setDaemon(true);
+                
+                return thread;
+            }
+        });
+    }
+    
+    @Override
+    public void dispose()
+    {
+        if (executor != null)
+            executor.shutdownNow();
+        
+        executor = null;
+        
+        if (tasks != null)
+            tasks.clear();
+        
+        tasks = null;
+    }
+    
+    /**
+     * Start loading in the background
+     * @param task The task that will load the resources
+     */
+    public void submit(final Callable<Void> task)
+    {
+        tasks.add(executor.submit(task));
+    }
+    
+    /**
+     * Mark 1 more resource as loaded, this can be called from any of the loading threads
+     * @return The number of resources loaded before this one
+     */
+    public int step()
+    {
+        return completed.getAndIncrement();
+    }
+    
+    /**
+     * Get the overall progress
+     * @return The percentage of resources loaded from 0 to 100
+     */
+    public int getProgress()
+    {
+        if (total < 1)
+            return 100;
+        
+        return Math.min(100, (completed.get() * 100) / total);
+    }
+    
+    /**
+     * Have all of the tasks finished
+     * @return true if every task has finished, false otherwise
+     * @throws Exception If any of the tasks failed
+     */
+    public boolean hasFinished() throws Exception
+    {
+        for (Future<Void> task : tasks)
+        {
+            if (!task.isDone())
+                return false;
+        }
+        
+        for (Future<Void> task : tasks)
+        {
+            try
+            {
+                task.get();
+            }
+            catch (ExecutionException e)
+            {
+                throw new Exception("Resources failed to load.", e.getCause());
+            }
+        }
+        
+        return true;
+    }
+}
\ No newline at end of file
@@ -2,12 +2,23 @@ package com.gamesbykevin.minesweeper.resources;
 
 import com.gamesbykevin.framework.resources.*;
 
+import com.gamesbykevin.minesweeper.metrics.Events;
+import com.gamesbykevin.minesweeper.shared.Shared;
+
+import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Image;
 import java.awt.Rectangle;
 
+import java.io.InputStream;
+import java.text.MessageFormat;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.imageio.ImageIO;
 
 /**
  * This class will load all resources in the collection and provide a way to access them
@@ -18,13 +29,25 @@ public class Resources implements IResources
     //root directory of all resources
     public static final String RESOURCE_DIR = "resources/"; 
     
-    //are we done loading resources
-    private boolean loading = true;
+    //are we done loading resources, this is read by the render thread
+    private volatile boolean loading = true;
+    
+    //loads the resources in the background, this is also read by the render thread
+    private volatile ResourceLoader loader;
+    
+    //the group of each resource manager when recording events
+    private static final int GROUP_FONTS = 0;
+    private static final int GROUP_AUDIO = 1;
+    private static final int GROUP_IMAGES = 2;
+    private static final int GROUP_TEXT = 3;
     
-    //all audio containers here
+    //description for progress bar
+    private static final String DESCRIPTION = "Loading Resources";
+    
+    //all audio containers here, the game audio is loaded on demand by its own class
     private enum TypeAudio
     {
-        GameAudio, MenuAudio
+        MenuAudio
     }
     
     //all image containers here
@@ -47,6 +70,16 @@ public class Resources implements IResources
     //object containing all audio objects
     private final HashMap<Object, AudioManager> audio;
     
+    //the game audio, decoded the first time each sound is played
+    private final GameAudio gameAudio;
+    
+    //the packed assets, null if the build didn't create an archive
+    private AssetArchive archive;
+    
+    //the images and fonts decoded from the archive, empty if they are loaded by the framework instead
+    private final Map<Object, Image> packedImages = new ConcurrentHashMap<>();
+    private final Map<Object, Font> packedFonts = new ConcurrentHashMap<>();
+    
     //object containing all image objects
     private final HashMap<Object, ImageManager> images;
     
@@ -59,9 +92,10 @@ public class Resources implements IResources
     public Resources() throws Exception
     {
         audio = new HashMap<>();
-        audio.put(TypeAudio.GameAudio, new GameAudio());
         audio.put(TypeAudio.MenuAudio, new MenuAudio());
         
+        gameAudio = new GameAudio();
+        
         images = new HashMap<>();
         images.put(TypeImage.MenuImage, new MenuImage());
         images.put(TypeImage.GameImage, new GameImage());
@@ -116,66 +150,353 @@ public class Resources implements IResources
         {
             audio.get(key).stopAll();
         }
+        
+        gameAudio.stopAll();
     }
     
     /**
-     * Here we will load the resources one by one and then marking the process finished once done
+     * Here we will load the resources in the background and then mark the process finished once done.<br>
+     * Each resource manager is loaded on its own thread, this is called every update until loading has finished.
      * @param source Class in root directory of project so we have a relative location so we know how to access resources
-     * @throws Exception 
+     * @throws Exception If any of the resources failed to load
      */
     @Override
     public void update(final Class source) throws Exception
     {
-        if (fonts != null)
+        //start loading the first time
+        if (loader == null)
         {
-            for (Object key : fonts.keySet())
+            //the game audio will be located from here when it is played
+            gameAudio.setSource(source);
+            
+            //the game audio, fonts and images are read from the packed archive if the build created one
+            try
             {
-                if (fonts.get(key).isLoading())
-                {
-                    fonts.get(key).update(source);
-                    return;
-                }
+                archive = AssetArchive.open(source, Shared.DATA_DIRECTORY);
+                gameAudio.setArchive(archive);
+            }
+            catch (Exception e)
+            {
+                //the loose files will be used instead
+                e.printStackTrace();
+                archive = null;
+            }
+            
+            final int count = audio.size() + images.size() + fonts.size() + text.size();
+            
+            final ResourceLoader tmp = new ResourceLoader(getTotal(), count);
+            
+            //the fonts are decoded from the archive when packed, otherwise the framework loads them from the class path
+            tmp.submit(createTask(tmp, select(fonts.get(TypeFont.AllFonts), AllFonts.LOCATION, AllFonts.Keys.values()), GROUP_FONTS, source));
+            
+            for (Object key : audio.keySet())
+            {
+                tmp.submit(createTask(tmp, adapt(audio.get(key)), GROUP_AUDIO, source));
             }
+            
+            //the images are decoded from the archive when packed, otherwise the framework loads them from the class path
+            tmp.submit(createTask(tmp, select(images.get(TypeImage.GameImage), GameImage.LOCATION, GameImage.Keys.values()), GROUP_IMAGES, source));
+            tmp.submit(createTask(tmp, select(images.get(TypeImage.MenuImage), MenuImage.LOCATION, MenuImage.Keys.values()), GROUP_IMAGES, source));
+            
+            for (Object key : text.keySet())
+            {
+                tmp.submit(createTask(tmp, adapt(text.get(key)), GROUP_TEXT, source));
+            }
+            
+            loader = tmp;
         }
         
-        if (audio != null)
+        //once everything is loaded we are done
+        if (loader.hasFinished())
         {
-            for (Object key : audio.keySet())
+            //we are done loading the resources
+            this.loading = false;
+            
+            loader.dispose();
+        }
+    }
+    
+    /**
+     * Get the total number of resources
+     * @return The number of resources that will be loaded
+     */
+    private static int getTotal()
+    {
+        int total = 0;
+        
+        total += AllFonts.Keys.values().length;
+        total += MenuAudio.Keys.values().length;
+        total += GameImage.Keys.values().length;
+        total += MenuImage.Keys.values().length;
+        total += GameText.Keys.values().length;
+        
+        return total;
+    }
+    
+    /**
+     * Create the task that will load everything in the manager
+     * @param loader The loader keeping track of progress
+     * @param manager The resources to load
+     * @param group The group of the manager when recording events
+     * @param source Class in root directory of project
+     * @return Task
+     */
+    private static Callable<Void> createTask(final ResourceLoader loader, final Loadable manager, final int group, final Class source)
+    {
+        return new Callable<Void>()
+        {
+            @Override
+            public Void call() throws Exception
             {
-                if (audio.get(key).isLoading())
+                while (manager.isLoading())
                 {
-                    audio.get(key).update(source);
-                    return;
+                    final long start = Events.start();
+                    
+                    manager.update(source);
+                    
+                    Events.commit(Events.Type.ResourceLoad, start, group, loader.step());
                 }
+                
+                return null;
             }
+        };
+    }
+    
+    /**
+     * Something that loads one resource each time it is updated
+     */
+    private interface Loadable
+    {
+        /**
+         * Are there still resources to load
+         * @return true if still loading, false otherwise
+         */
+        boolean isLoading();
+        
+        /**
+         * Load the next resource
+         * @param source Class in root directory of project
+         * @throws Exception If the resource failed to load
+         */
+        void update(final Class source) throws Exception;
+    }
+    
+    /**
+     * Something that decodes each resource straight from the archive
+     * @param <T> The type of resource
+     */
+    private abstract static class PackedLoader<T> implements Loadable
+    {
+        //the packed assets
+        private final AssetArchive archive;
+        
+        //the path of each resource, {0} is the index of the key
+        private final String location;
+        
+        //the keys of the resources
+        private final Object[] keys;
+        
+        //where each decoded resource is kept
+        private final Map<Object, T> destination;
+        
+        //the index of the next resource to decode
+        private int index = 0;
+        
+        private PackedLoader(final AssetArchive archive, final String location, final Object[] keys, final Map<Object, T> destination)
+        {
+            this.archive = archive;
+            this.location = location;
+            this.keys = keys;
+            this.destination = destination;
         }
         
-        if (images != null)
+        @Override
+        public boolean isLoading()
         {
-            for (Object key : images.keySet())
+            return (index < keys.length);
+        }
+        
+        @Override
+        public void update(final Class source) throws Exception
+        {
+            final String path = MessageFormat.format(location, index);
+            
+            try (InputStream stream = archive.openStream(path))
             {
-                if (images.get(key).isLoading())
-                {
-                    images.get(key).update(source);
-                    return;
-                }
+                final T resource = decode(stream);
+                
+                if (resource == null)
+                    throw new Exception("Resource could not be decoded: " + path);
+                
+                destination.put(keys[index], resource);
             }
+            
+            index++;
         }
         
-        if (text != null)
+        /**
+         * Decode the resource
+         * @param stream Reads the resource from the archive
+         * @return The resource, null if it can't be decoded
+         * @throws Exception If the resource failed to decode
+         */
+        protected abstract T decode(final InputStream stream) throws Exception;
+    }
+    
+    /**
+     * Is every resource in the archive
+     * @param location The path of each resource, {0} is the index of the key
+     * @param keys The keys of the resources
+     * @return true if all of them were packed, false otherwise
+     */
+    private boolean isPacked(final String location, final Object[] keys)
+    {
+        if (archive == null)
+            return false;
+        
+        for (int index = 0; index < keys.length; index++)
         {
-            for (Object key : text.keySet())
+            if (!archive.has(MessageFormat.format(location, index)))
+                return false;
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Decode the fonts from the archive if they were packed, otherwise load them through the manager
+     * @param manager The fonts to load from the class path
+     * @param location The path of each font, {0} is the index of the key
+     * @param keys The keys of the fonts
+     * @return Loadable
+     */
+    private Loadable select(final FontManager manager, final String location, final Object[] keys)
+    {
+        if (!isPacked(location, keys))
+            return adapt(manager);
+        
+        return new PackedLoader<Font>(archive, location, keys, packedFonts)
+        {
+            @Override
+            protected Font decode(final InputStream stream) throws Exception
             {
-                if (text.get(key).isLoading())
-                {
-                    text.get(key).update(source);
-                    return;
-                }
+                return Font.createFont(Font.TRUETYPE_FONT, stream);
             }
-        }
+        };
+    }
+    
+    /**
+     * Decode the images from the archive if they were packed, otherwise load them through the manager
+     * @param manager The images to load from the class path
+     * @param location The path of each image, {0} is the index of the key
+     * @param keys The keys of the images
+     * @return Loadable
+     */
+    private Loadable select(final ImageManager manager, final String location, final Object[] keys)
+    {
+        if (!isPacked(location, keys))
+            return adapt(manager);
         
-        //we are done loading the resources
-        this.loading = false;
+        return new PackedLoader<Image>(archive, location, keys, packedImages)
+        {
+            @Override
+            protected Image decode(final InputStream stream) throws Exception
+            {
+                return ImageIO.read(stream);
+            }
+        };
+    }
+    
+    /**
+     * Load the fonts through the manager
+     * @param manager The fonts to load
+     * @return Loadable
+     */
+    private static Loadable adapt(final FontManager manager)
+    {
+        return new Loadable()
+        {
+            @Override
+            public boolean isLoading()
+            {
+                return manager.isLoading();
+            }
+            
+            @Override
+            public void update(final Class source) throws Exception
+            {
+                manager.update(source);
+            }
+        };
+    }
+    
+    /**
+     * Load the audio through the manager
+     * @param manager The audio to load
+     * @return Loadable
+     */
+    private static Loadable adapt(final AudioManager manager)
+    {
+        return new Loadable()
+        {
+            @Override
+            public boolean isLoading()
+            {
+                return manager.isLoading();
+            }
+            
+            @Override
+            public void update(final Class source) throws Exception
+            {
+                manager.update(source);
+            }
+        };
+    }
+    
+    /**
+     * Load the images through the manager
+     * @param manager The images to load
+     * @return Loadable
+     */
+    private static Loadable adapt(final ImageManager manager)
+    {
+        return new Loadable()
+        {
+            @Override
+            public boolean isLoading()
+            {
+                return manager.isLoading();
+            }
+            
+            @Override
+            public void update(final Class source) throws Exception
+            {
+                manager.update(source);
+            }
+        };
+    }
+    
+    /**
+     * Load the text through the manager
+     * @param manager The text to load
+     * @return Loadable
+     */
+    private static Loadable adapt(final TextManager manager)
+    {
+        return new Loadable()
+        {
+            @Override
+            public boolean isLoading()
+            {
+                return manager.isLoading();
+            }
+            
+            @Override
+            public void update(final Class source) throws Exception
+            {
+                manager.update(source);
+            }
+        };
     }
     
     /**
@@ -204,6 +525,8 @@ public class Resources implements IResources
         {
             audio.get(key).setEnabled(enabled);
         }
+        
+        gameAudio.setEnabled(enabled);
     }
     
     /**
@@ -213,7 +536,9 @@ public class Resources implements IResources
      */
     public Image getMenuImage(final Object key)
     {
-        return images.get(TypeImage.MenuImage).get(key);
+        final Image image = packedImages.get(key);
+        
+        return (image != null) ? image : images.get(TypeImage.MenuImage).get(key);
     }
     
     /**
@@ -223,7 +548,9 @@ public class Resources implements IResources
      */
     public Image getGameImage(final Object key)
     {
-        return images.get(TypeImage.GameImage).get(key);
+        final Image image = packedImages.get(key);
+        
+        return (image != null) ? image : images.get(TypeImage.GameImage).get(key);
     }
     
     public Text getGameText(final Object key)
@@ -245,24 +572,52 @@ public class Resources implements IResources
         playGameAudio(key, false);
     }
     
+    /**
+     * Play game audio, this never waits on the audio to be decoded or started
+     * @param key 
+     * @param loop 
+     */
     public void playGameAudio(final Object key, final boolean loop)
     {
-        audio.get(TypeAudio.GameAudio).play(key, loop);
+        gameAudio.play((GameAudio.Keys)key, loop);
     }
     
     public void stopGameAudio(final Object key)
     {
-        audio.get(TypeAudio.GameAudio).stop(key);
+        gameAudio.stop((GameAudio.Keys)key);
     }
     
     public Font getFont(final Object key)
     {
-        return fonts.get(TypeFont.AllFonts).get(key);
+        final Font font = packedFonts.get(key);
+        
+        return (font != null) ? font : fonts.get(TypeFont.AllFonts).get(key);
     }
     
     @Override
     public void dispose()
     {
+        //stop loading if we haven't finished
+        if (loader != null)
+            loader.dispose();
+        
+        loader = null;
+        
+        gameAudio.dispose();
+        
+        if (archive != null)
+            archive.dispose();
+        
+        archive = null;
+        
+        for (Image image : packedImages.values())
+        {
+            image.flush();
+        }
+        
+        packedImages.clear();
+        packedFonts.clear();
+        
         if (audio != null)
         {
             for (Object key : audio.keySet())
@@ -308,58 +663,30 @@ public class Resources implements IResources
         }
     }
     
+    /**
+     * Draw the overall progress of all resources being loaded
+     * @param graphics Graphics object to write to
+     * @param screen The container for rendering the progress bar
+     */
     @Override
     public void render(final Graphics graphics, final Rectangle screen)
     {
         if (!isLoading())
             return;
         
-        if (fonts != null)
-        {
-            for (Object key : fonts.keySet())
-            {
-                if (fonts.get(key).isLoading())
-                {
-                    fonts.get(key).render(graphics, screen);
-                    return;
-                }
-            }
-        }
+        final ResourceLoader tmp = loader;
         
-        if (audio != null)
-        {
-            for (Object key : audio.keySet())
-            {
-                if (audio.get(key).isLoading())
-                {
-                    audio.get(key).render(graphics, screen);
-                    return;
-                }
-            }
-        }
+        final int progress = (tmp != null) ? tmp.getProgress() : 0;
         
-        if (images != null)
-        {
-            for (Object key : images.keySet())
-            {
-                if (images.get(key).isLoading())
-                {
-                    images.get(key).render(graphics, screen);
-                    return;
-                }
-            }
-        }
+        //size and location of the progress bar
+        final int width = screen.width / 2;
+        final int height = 20;
+        final int x = screen.x + (screen.width / 2) - (width / 2);
+        final int y = screen.y + (screen.height / 2) - (height / 2);
         
-        if (text != null)
-        {
-            for (Object key : text.keySet())
-            {
-                if (text.get(key).isLoading())
-                {
-                    text.get(key).render(graphics, screen);
-                    return;
-                }
-            }
-        }
+        graphics.setColor(Color.WHITE);
+        graphics.drawString(DESCRIPTION + " " + progress + "%", x, y - 5);
+        graphics.drawRect(x, y, width, height);
+        graphics.fillRect(x, y, (width * progress) / 100, height);
     }
 }
\ No newline at end of file
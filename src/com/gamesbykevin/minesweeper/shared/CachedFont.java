@@ -0,0 +1,57 @@
+package com.gamesbykevin.minesweeper.shared;
+
+import java.awt.Font;
+
+/**
+ * Keeps a font derived at a specific size/style so it isn't derived again every frame.<br>
+ * The font is only derived again when the base font changes.
+ * @author GOD
+ */
+public final class CachedFont
+{
+    //use this style to keep the style of the base font
+    public static final int BASE_STYLE = -1;
+    
+    //the style and size of the derived font
+    private final int style;
+    private final float size;
+    
+    //the font we derived from and the result
+    private Font base, derived;
+    
+    /**
+     * Create a cached font that keeps the style of the base font
+     * @param size The size of the derived font
+     */
+    public CachedFont(final float size)
+    {
+        this(BASE_STYLE, size);
+    }
+    
+    /**
+     * Create a cached font
+     * @param style The style of the derived font (Font.PLAIN, Font.BOLD, etc...)
+     * @param size The size of the derived font
+     */
+    public CachedFont(final int style, final float size)
+    {
+        this.style = style;
+        this.size = size;
+    }
+    
+    /**
+     * Get the derived font
+     * @param base The font to derive from
+     * @return The derived font, the same object is returned as long as the base font is the same
+     */
+    public Font get(final Font base)
+    {
+        if (base != this.base)
+        {
+            this.base = base;
+            this.derived = (style == BASE_STYLE) ? base.deriveFont(size) : base.deriveFont(style, size);
+        }
+        
+        return this.derived;
+    }
+}
\ No newline at end of file
@@ -23,6 +23,18 @@ public class Shared
     //show UPS/FPS counters
     public static final boolean DEBUG = false;
     
+    //record every game so it can be replayed
+    public static final boolean RECORD_REPLAY = false;
+    
+    //where recorded/saved games are written
+    public static final String DATA_DIRECTORY = System.getProperty("user.dir");
+    
+    //the file extension of a recorded game
+    public static final String REPLAY_EXTENSION = ".msr";
+    
+    //the file extension of a saved game
+    public static final String SAVE_EXTENSION = ".mss";
+    
     //how many updates per second, controls speed of game
     public static final int DEFAULT_UPS = 90;
     
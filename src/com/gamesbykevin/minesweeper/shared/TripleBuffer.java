@@ -0,0 +1,74 @@
+package com.gamesbykevin.minesweeper.shared;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free exchange of state between one producer thread and one consumer thread.<br>
+ * The producer writes to the back buffer and publishes it, the consumer reads the latest published buffer.<br>
+ * Neither thread ever waits on the other.
+ * @author GOD
+ * @param <T> The type of state that is exchanged
+ */
+public final class TripleBuffer<T>
+{
+    //flag marking that the middle buffer has been published since the consumer last took it
+    private static final int DIRTY = 4;
+    
+    //mask to get the index from the middle value
+    private static final int INDEX = 3;
+    
+    //the 3 buffers
+    private final T[] buffers;
+    
+    //index of the buffer the producer is writing to
+    private int back = 0;
+    
+    //index of the buffer the consumer is reading from
+    private int front = 1;
+    
+    //index of the buffer waiting to be exchanged, along with the dirty flag
+    private final AtomicInteger middle = new AtomicInteger(2);
+    
+    /**
+     * Create a new triple buffer
+     * @param back Initial buffer for the producer
+     * @param front Initial buffer for the consumer
+     * @param middle Initial buffer for the exchange
+     */
+    @SuppressWarnings("unchecked")
+    public TripleBuffer(final T back, final T front, final T middle)
+    {
+        this.buffers = (T[])new Object[] { back, front, middle };
+    }
+    
+    /**
+     * Get the buffer the producer should write to
+     * @return The back buffer
+     */
+    public T getBack()
+    {
+        return buffers[back];
+    }
+    
+    /**
+     * Publish the back buffer so it will be the next one read by the consumer.<br>
+     * Should only be called by the producer thread.
+     */
+    public void publish()
+    {
+        this.back = middle.getAndSet(back | DIRTY) & INDEX;
+    }
+    
+    /**
+     * Get the most recently published buffer.<br>
+     * Should only be called by the consumer thread.
+     * @return The front buffer
+     */
+    public T acquire()
+    {
+        if ((middle.get() & DIRTY) != 0)
+            this.front = middle.getAndSet(front) & INDEX;
+        
+        return buffers[front];
+    }
+}
\ No newline at end of file